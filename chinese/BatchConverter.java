@@ -0,0 +1,172 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * BatchConverter.java - Converts batches of strings to traditional or
+ *   simplified form in parallel.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts batches of strings to traditional or simplified form in
+ * parallel on the common ForkJoinPool.
+ * <p>
+ * A batch is split by the total number of characters rather than the
+ * number of strings, so a few long strings and many short ones are spread
+ * evenly over the tasks.  The results are in the order of the input, and a
+ * null string gives a null result.  Optionally, identical strings in the
+ * batch are converted only once.
+ */
+public class BatchConverter {
+
+  /** Number of characters converted by a parallel task.
+   *  Batches up to two chunks are converted sequentially.
+   */
+  private static final int CHUNK_SIZE = 16384;
+
+  /**
+   * Convert the strings to the specified form.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param strings The strings to convert
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @param dedupe If true, convert identical strings only once.
+   * @return The converted strings, in the same order.  A string not changed
+   *   by the conversion is returned as is.
+   */
+  public static String[] convert(ChineseDictionary dictionary, String[] strings,
+    boolean traditional, boolean dedupe) {
+    if (!dedupe) {
+      String[] results = new String[strings.length];
+      convert(dictionary, strings, results, traditional);
+      return results;
+    }
+
+    // convert each distinct string once
+    HashMap<String, Integer> ids = new HashMap<String, Integer>();
+    int[] idOf = new int[strings.length];
+    ArrayList<String> distinct = new ArrayList<String>();
+    for (int i = 0; i < strings.length; i++) {
+      String s = strings[i];
+      Integer id = (s == null) ? null : ids.get(s);
+      if (id == null) {
+        id = distinct.size();
+        distinct.add(s);
+        if (s != null) ids.put(s, id);
+      }
+      idOf[i] = id;
+    }
+
+    String[] unique = distinct.toArray(new String[distinct.size()]);
+    String[] converted = new String[unique.length];
+    convert(dictionary, unique, converted, traditional);
+
+    String[] results = new String[strings.length];
+    for (int i = 0; i < strings.length; i++) results[i] = converted[idOf[i]];
+    return results;
+  }
+
+  /**
+   * Convert the strings to the specified form.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param strings The strings to convert
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @param dedupe If true, convert identical strings only once.
+   * @return The converted strings, in the same order, as a new list.
+   */
+  public static List<String> convert(ChineseDictionary dictionary, List<String> strings,
+    boolean traditional, boolean dedupe) {
+    String[] results = convert(dictionary, strings.toArray(new String[strings.size()]),
+      traditional, dedupe);
+    return new ArrayList<String>(Arrays.asList(results));
+  }
+
+  /** Convert the strings into the results, in parallel if they are long enough. */
+  private static void convert(ChineseDictionary dictionary, String[] strings, String[] results,
+    boolean traditional) {
+    // cumulative number of characters before each string
+    long[] offsets = new long[strings.length + 1];
+    for (int i = 0; i < strings.length; i++) {
+      offsets[i+1] = offsets[i] + ((strings[i] == null) ? 0 : strings[i].length());
+    }
+
+    if (offsets[strings.length] <= 2*CHUNK_SIZE) {
+      convert(dictionary, strings, results, traditional, 0, strings.length);
+    } else {
+      ForkJoinPool.commonPool().invoke(new ConvertTask(dictionary, strings, results, offsets,
+        traditional, 0, strings.length));
+    }
+  }
+
+  /** Convert strings [lo, hi) into the results. */
+  private static void convert(ChineseDictionary dictionary, String[] strings, String[] results,
+    boolean traditional, int lo, int hi) {
+    for (int i = lo; i < hi; i++) {
+      String s = strings[i];
+      if (s == null) continue;
+      results[i] = (traditional) ? dictionary.toTraditional(s) : dictionary.toSimplified(s);
+    }
+  }
+
+  /**
+   * Task for converting strings [lo, hi).
+   */
+  private static class ConvertTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final ChineseDictionary dictionary;
+    private final String[] strings;
+    private final String[] results;
+    private final long[] offsets;
+    private final boolean traditional;
+    private final int lo, hi;
+
+    ConvertTask(ChineseDictionary dictionary, String[] strings, String[] results, long[] offsets,
+      boolean traditional, int lo, int hi) {
+      this.dictionary = dictionary;
+      this.strings = strings;
+      this.results = results;
+      this.offsets = offsets;
+      this.traditional = traditional;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    protected void compute() {
+      if (hi - lo > 1 && offsets[hi] - offsets[lo] > CHUNK_SIZE) {
+        // split where half of the characters are on each side
+        long half = (offsets[lo] + offsets[hi]) >>> 1;
+        int mid = Arrays.binarySearch(offsets, lo, hi + 1, half);
+        if (mid < 0) mid = -mid - 1;
+        mid = Math.max(lo + 1, Math.min(mid, hi - 1));
+        invokeAll(new ConvertTask(dictionary, strings, results, offsets, traditional, lo, mid),
+          new ConvertTask(dictionary, strings, results, offsets, traditional, mid, hi));
+        return;
+      }
+
+      convert(dictionary, strings, results, traditional, lo, hi);
+    }
+  }
+
+}
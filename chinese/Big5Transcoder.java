@@ -0,0 +1,256 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * Big5Transcoder.java - Transcodes Big5 bytes to UTF-8 bytes in
+ *   traditional or simplified form in one pass.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transcodes Big5 bytes to UTF-8 bytes, converting the Chinese characters
+ * to traditional or simplified form on the way, in one pass over
+ * ByteBuffers.
+ * <p>
+ * ASCII bytes pass through unchanged.  A Big5 code (see
+ * {@link Coding#isBig5Lead(int b) Coding.isBig5Lead()} and
+ * {@link Coding#isBig5Trail(int b) Coding.isBig5Trail()}) is decoded with a
+ * table built once from the Big5 charset of the JDK, and any other byte, or
+ * a code not in the table, becomes U+FFFD.  The decoded characters are kept
+ * in a small window so that each is converted with the same vocabulary
+ * context as {@link ConversionMode#WINDOW WINDOW} mode, across buffer
+ * boundaries.
+ * <p>
+ * A transcoder is used like a {@link CharsetDecoder}: call
+ * {@link #transcode(ByteBuffer in, ByteBuffer out, boolean endOfInput)
+ * transcode()} until the input is consumed, with endOfInput true for the
+ * last input, until it returns {@link CoderResult#UNDERFLOW}.  It is not
+ * safe for concurrent use.
+ */
+public class Big5Transcoder {
+
+  /** Number of characters before and after a character needed to convert it. */
+  private static final int CONTEXT = ChineseDictionary.CONTEXT_LENGTH;
+
+  /** Number of trail bytes for a lead byte. */
+  private static final int TRAILS = (0x7E - 0x40 + 1) + (0xFE - 0xA1 + 1);
+
+  /** The dictionary for the conversion. */
+  private final ChineseDictionary dictionary;
+
+  /** If true, convert to traditional form, otherwise to simplified form. */
+  private final boolean traditional;
+
+  /** Characters decoded, with those already converted at the front kept as context. */
+  private final char[] window = new char[4096];
+
+  /** Index of the next character to convert. */
+  private int pos = 0;
+
+  /** End of the characters decoded. */
+  private int limit = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   */
+  public Big5Transcoder(ChineseDictionary dictionary, boolean traditional) {
+    this.dictionary = dictionary;
+    this.traditional = traditional;
+  }
+
+  /**
+   * Transcode as many bytes as possible from the input buffer to the output
+   * buffer.
+   *
+   * @param in Big5 bytes
+   * @param out Buffer for the UTF-8 bytes
+   * @param endOfInput True if no more input follows what is in the input buffer
+   * @return {@link CoderResult#OVERFLOW} if the output buffer is full, or
+   *   {@link CoderResult#UNDERFLOW} if more input is needed, or if
+   *   endOfInput is true and all output has been written.
+   */
+  public CoderResult transcode(ByteBuffer in, ByteBuffer out, boolean endOfInput) {
+    char[] table = Big5Table.TABLE;
+    while (true) {
+      // decode into the window
+      if (limit == window.length) {  // keep CONTEXT converted characters before pos
+        int keep = Math.max(0, pos - CONTEXT);
+        System.arraycopy(window, keep, window, 0, limit - keep);
+        pos -= keep;
+        limit -= keep;
+      }
+      while (limit < window.length && in.hasRemaining()) {
+        int b1 = in.get(in.position()) & 0xFF;
+        if (b1 < 0x80) {
+          window[limit++] = (char) b1;
+          in.position(in.position() + 1);
+        } else if (!Coding.isBig5Lead(b1)) {
+          window[limit++] = '\ufffd';
+          in.position(in.position() + 1);
+        } else if (in.remaining() < 2) {
+          if (!endOfInput) break;  // wait for the trail byte
+          window[limit++] = '\ufffd';
+          in.position(in.position() + 1);
+        } else {
+          int b2 = in.get(in.position() + 1) & 0xFF;
+          if (Coding.isBig5Trail(b2)) {
+            char c = table[(b1 - 0xA1) * TRAILS + ((b2 <= 0x7E) ? b2 - 0x40 : b2 - 0xA1 + 0x3F)];
+            window[limit++] = (c == 0) ? '\ufffd' : c;
+            in.position(in.position() + 2);
+          } else {  // the trail byte is decoded on its own
+            window[limit++] = '\ufffd';
+            in.position(in.position() + 1);
+          }
+        }
+      }
+
+      // convert the characters with enough context and encode them
+      boolean last = endOfInput && !in.hasRemaining();
+      int end = (last) ? limit : limit - CONTEXT;
+      while (pos < end) {
+        char c = dictionary.convert(window, 0, limit, pos, traditional);
+        if (c < 0x80) {
+          if (out.remaining() < 1) return CoderResult.OVERFLOW;
+          out.put((byte) c);
+        } else if (c < 0x800) {
+          if (out.remaining() < 2) return CoderResult.OVERFLOW;
+          out.put((byte) (0xC0 | (c >> 6)));
+          out.put((byte) (0x80 | (c & 0x3F)));
+        } else {  // Big5 and the dictionary have no surrogates
+          if (out.remaining() < 3) return CoderResult.OVERFLOW;
+          out.put((byte) (0xE0 | (c >> 12)));
+          out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+          out.put((byte) (0x80 | (c & 0x3F)));
+        }
+        pos++;
+      }
+
+      if (last || !in.hasRemaining() || (limit < window.length && in.remaining() < 2)) {
+        return CoderResult.UNDERFLOW;
+      }
+    }
+  }
+
+  /**
+   * Transcode Big5 bytes to UTF-8 bytes in the specified form.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param big5 Big5 bytes
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @return UTF-8 bytes.
+   */
+  public static byte[] transcode(ChineseDictionary dictionary, byte[] big5, boolean traditional) {
+    Big5Transcoder transcoder = new Big5Transcoder(dictionary, traditional);
+    ByteBuffer in = ByteBuffer.wrap(big5);
+    ByteBuffer out = ByteBuffer.allocate(big5.length + big5.length / 2 + 16);
+    while (transcoder.transcode(in, out, true) == CoderResult.OVERFLOW) {
+      ByteBuffer bigger = ByteBuffer.allocate(2 * out.capacity());
+      out.flip();
+      bigger.put(out);
+      out = bigger;
+    }
+    byte[] result = new byte[out.position()];
+    out.flip();
+    out.get(result);
+    return result;
+  }
+
+  /**
+   * Transcode a Big5 file to a UTF-8 file in the specified form.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param inFile The input file in Big5
+   * @param outFile The output file in UTF-8
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @throws IOException If an error occurred when reading or writing the files.
+   */
+  public static void transcode(ChineseDictionary dictionary, File inFile, File outFile,
+    boolean traditional) throws IOException {
+    Big5Transcoder transcoder = new Big5Transcoder(dictionary, traditional);
+    ByteBuffer in = ByteBuffer.allocate(65536);
+    ByteBuffer out = ByteBuffer.allocate(65536);
+
+    FileChannel fin = FileChannel.open(inFile.toPath(), StandardOpenOption.READ);
+    FileChannel fout = null;
+    try {
+      fout = FileChannel.open(outFile.toPath(), StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      boolean eof = false;
+      while (true) {
+        if (!eof && fin.read(in) < 0) eof = true;
+        in.flip();
+        CoderResult result = transcoder.transcode(in, out, eof);
+        in.compact();
+
+        out.flip();
+        while (out.hasRemaining()) fout.write(out);
+        out.clear();
+        if (eof && result == CoderResult.UNDERFLOW) break;
+      }
+    } finally {
+      fin.close();
+      if (fout != null) fout.close();
+    }
+  }
+
+  /** The table from Big5 code to character, built when first used. */
+  private static class Big5Table {
+
+    /** Character of each Big5 code, indexed by lead and trail byte.  Zero if none. */
+    static final char[] TABLE = build();
+
+    /** Decode each Big5 code with the Big5 charset of the JDK. */
+    private static char[] build() {
+      char[] table = new char[(0xFE - 0xA1 + 1) * TRAILS];
+      if (!Charset.isSupported("Big5")) return table;
+
+      CharsetDecoder decoder = Charset.forName("Big5").newDecoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT);
+      byte[] code = new byte[2];
+      int i = 0;
+      for (int b1 = 0xA1; b1 <= 0xFE; b1++) {
+        for (int b2 = 0x40; b2 <= 0xFE; b2++) {
+          if (!Coding.isBig5Trail(b2)) continue;
+          code[0] = (byte) b1;
+          code[1] = (byte) b2;
+          try {
+            CharBuffer chars = decoder.reset().decode(ByteBuffer.wrap(code));
+            if (chars.remaining() == 1) table[i] = chars.get(0);
+          } catch (CharacterCodingException e) { // not in Big5, left as zero
+          }
+          i++;
+        }
+      }
+      return table;
+    }
+  }
+
+}
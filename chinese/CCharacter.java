@@ -43,8 +43,8 @@ import java.util.*;
  * </ol> 
  *
  * <p>
- * The class ChineseHelper contains a vector of all CCharacter.
- * It also has a map from a character to CCharacter[] and a map
+ * The class ChineseDictionary contains all CCharacter.
+ * It also has a table from a character to CCharacter[] and a map
  * from a vocabluary string to CCharacter[].
  * <p>
  * The structure and methods are symmetric with respect to simplified
@@ -60,6 +60,7 @@ import java.util.*;
  * <ul>
  * <li>1998-06 Initial version.
  * <li>2013-07 Moved static data to ChineseHelper.java
+ * <li>2026-10 Moved static data to ChineseDictionary.java
  * </ul> 
  */
 public class CCharacter {
@@ -90,6 +91,11 @@ public class CCharacter {
     concepts.add(concept);
   }
 
+  /** Returns the concepts related to this CCharacter as a read-only list. */
+  public List<Concept> getConcepts() {
+    return Collections.unmodifiableList(concepts);
+  }
+
   /** Returns a string representation of this object. */
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -0,0 +1,74 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * CharTable.java - A lookup table from a character to CCharacter[].
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+/**
+ * A lookup table from a character (UTF-16 code unit) to the CCharacter[]
+ * of its candidates.
+ * <p>
+ * The table has two levels.  The high byte of a character selects a page
+ * of 256 entries, and the low byte selects the entry in that page.  Pages
+ * are only allocated for high bytes in use, so the table for the data in
+ * chinese.csv (mostly 4e00-9fff) stays small.  A lookup is two array reads
+ * with no boxing of the character and no allocation.
+ */
+public class CharTable {
+
+  /** Number of bits for the index within a page. */
+  private static final int PAGE_BITS = 8;
+
+  /** Number of entries in a page. */
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+  /** Mask for the index within a page. */
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  /** Pages of candidates, indexed by the high byte of a character. */
+  private final CCharacter[][][] pages = new CCharacter[PAGE_SIZE][][];
+
+  /** Number of characters with mapping. */
+  private int size = 0;
+
+  /** Returns the candidates for the input character,
+   *  or null if there is no mapping.
+   */
+  public final CCharacter[] get(char c) {
+    CCharacter[][] page = pages[c >>> PAGE_BITS];
+    return (page == null) ? null : page[c & PAGE_MASK];
+  }
+
+  /** Set the candidates for the input character, replacing any existing ones. */
+  public void put(char c, CCharacter[] cca) {
+    CCharacter[][] page = pages[c >>> PAGE_BITS];
+    if (page == null) {
+      page = new CCharacter[PAGE_SIZE][];
+      pages[c >>> PAGE_BITS] = page;
+    }
+    if (page[c & PAGE_MASK] == null) size++;
+    page[c & PAGE_MASK] = cca;
+  }
+
+  /** Returns the number of characters with mapping. */
+  public int size() {
+    return size;
+  }
+
+}
@@ -0,0 +1,197 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ChineseCollationKey.java - A string mapped once for comparing in the
+ *   same order as ChineseHelper.compare().
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.*;
+
+import util.StringHelper.Comparison;
+
+/**
+ * A string mapped once with a dictionary, for comparing in the same order
+ * as {@link ChineseHelper#compare(char[] chars1, char[] chars2, Comparison option)
+ * ChineseHelper.compare()} with the same option, similar to
+ * {@link java.text.CollationKey}.
+ * <p>
+ * The key holds the characters of the string and their folded forms: the
+ * simplified form of the CCharacter of a Chinese character, or for
+ * PINYIN_FOLD_FORM its weight in pinyin order, and for the folding
+ * options, the upper case of any other character.  Comparing two
+ * keys walks these arrays in lockstep as compare() does, without mapping
+ * the strings or allocating anything.  So sorting n strings maps each
+ * string once instead of O(log n) times.
+ * <p>
+ * Keys are only comparable with keys of the same option created with the
+ * same dictionary.  The order is not consistent with equals(), which is
+ * that of Object.
+ */
+public final class ChineseCollationKey implements Comparable<ChineseCollationKey> {
+
+  /** The source string. */
+  private final String source;
+
+  /** The comparison option. */
+  private final Comparison option;
+
+  /** The characters of the source string. */
+  private final char[] chars;
+
+  /** The folded form of each character, or the pinyin weight of a
+   *  Chinese character for PINYIN_FOLD_FORM.
+   */
+  private final int[] folded;
+
+  /** Bitset of the characters that map to a CCharacter. */
+  private final long[] mapped;
+
+  /**
+   * Constructor.
+   *
+   * @param dictionary The dictionary for mapping the characters
+   * @param source The string
+   * @param option One of the option for comparison.
+   *   See {@link util.StringHelper.Comparison StringHelper.Comparison}.
+   */
+  public ChineseCollationKey(ChineseDictionary dictionary, String source, Comparison option) {
+    this.source = source;
+    this.option = option;
+    this.chars = source.toCharArray();
+    int n = chars.length;
+    if (option == Comparison.LEXICAL) {  // compared as strings
+      folded = null;
+      mapped = null;
+      return;
+    }
+
+    boolean foldCase = isFoldOption(option) || isIgnoreOption(option);
+    CCharacter[] cca = dictionary.toCChars(chars);
+    boolean pinyin = option == Comparison.PINYIN_FOLD_FORM;
+    folded = new int[n];
+    mapped = new long[(n + 63) >>> 6];
+    for (int i = 0; i < n; i++) {
+      if (cca[i] != null) {
+	folded[i] = (pinyin) ? dictionary.getPinyinWeight(cca[i]) : cca[i].simpChar;
+	mapped[i >>> 6] |= 1L << i;
+      } else {
+	char c = chars[i];
+	folded[i] = (foldCase) ? Character.toUpperCase(Character.toLowerCase(c)) : c;
+      }
+    }
+  }
+
+  /** Returns the source string. */
+  public String getSourceString() {
+    return source;
+  }
+
+  /** Returns the comparison option. */
+  public Comparison getOption() {
+    return option;
+  }
+
+  /**
+   * Compare this key with another key of the same option.
+   *
+   * @param other The other key
+   * @return The same sign as ChineseHelper.compare() on the two source strings.
+   * @throws IllegalArgumentException If the keys have different options.
+   */
+  public int compareTo(ChineseCollationKey other) {
+    if (option != other.option) {
+      throw new IllegalArgumentException("ChineseCollationKey.compareTo: different options "
+        + option + " and " + other.option);
+    }
+    if (option == Comparison.LEXICAL) return compareChars(chars, other.chars);
+
+    char[] chars1 = chars, chars2 = other.chars;
+    int n1 = chars1.length, n2 = chars2.length;
+    for (int i = 0; ; i++) {
+      char c1 = (i >= n1) ? 0 : chars1[i];
+      char c2 = (i >= n2) ? 0 : chars2[i];
+
+      if (c1 == 0 && c2 == 0) { // both reach the end
+	return (isFoldOption(option)) ? compareChars(chars1, chars2) : 0;
+      }
+      if (c1 == c2) continue;
+
+      boolean m1 = i < n1 && (mapped[i >>> 6] & (1L << i)) != 0;
+      boolean m2 = i < n2 && (other.mapped[i >>> 6] & (1L << i)) != 0;
+      int result;
+      if (!m1 && !m2) {  // no mapping to CCharacter
+	result = ((i >= n1) ? 0 : folded[i]) - ((i >= n2) ? 0 : other.folded[i]);
+      } else if (!m1) {
+	return c1 - other.folded[i];
+      } else if (!m2) {
+	return folded[i] - c2;
+      } else { // both have mapping to CCharacter
+	result = folded[i] - other.folded[i];
+      }
+      if (result != 0) return result;
+    }
+  }
+
+  /** Returns the source string. */
+  public String toString() {
+    return source;
+  }
+
+  /**
+   * Sort the strings in the order of ChineseHelper.compare() with the
+   * option, mapping each string only once.
+   *
+   * @param dictionary The dictionary for mapping the characters
+   * @param strings The strings to sort, which must not contain null
+   * @param option One of the option for comparison.
+   */
+  public static void sort(ChineseDictionary dictionary, List<String> strings, Comparison option) {
+    ChineseCollationKey[] keys = new ChineseCollationKey[strings.size()];
+    int k = 0;
+    for (String s : strings) keys[k++] = new ChineseCollationKey(dictionary, s, option);
+    Arrays.sort(keys);
+
+    ListIterator<String> it = strings.listIterator();
+    for (ChineseCollationKey key : keys) {
+      it.next();
+      it.set(key.source);
+    }
+  }
+
+  /** Compare the two character arrays as String.compareTo() does. */
+  private static int compareChars(char[] chars1, char[] chars2) {
+    int n = Math.min(chars1.length, chars2.length);
+    for (int i = 0; i < n; i++) {
+      if (chars1[i] != chars2[i]) return chars1[i] - chars2[i];
+    }
+    return chars1.length - chars2.length;
+  }
+
+  /** Returns true if the option folds the form, breaking ties by the strings. */
+  private static boolean isFoldOption(Comparison option) {
+    return option == Comparison.FOLD_FORM || option == Comparison.FOLD_CASE
+      || option == Comparison.PINYIN_FOLD_FORM;
+  }
+
+  /** Returns true if the option ignores the form. */
+  private static boolean isIgnoreOption(Comparison option) {
+    return option == Comparison.IGNORE_FORM || option == Comparison.IGNORE_CASE;
+  }
+
+}
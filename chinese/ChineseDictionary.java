@@ -0,0 +1,685 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ChineseDictionary.java - An immutable set of Chinese character data
+ *   with the mappings for form conversion.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.io.*;
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * An immutable set of Chinese character data with the mappings for form
+ * conversion.  It holds the CCharacters in the order they were loaded,
+ * the table from character to CCharacter[], and the index from vocabulary
+ * string to CCharacter[], which is a {@link VocabTrie}.  For conversion,
+ * it also derives a {@link FormTable} for each form, so a character whose
+ * form does not depend on the context is converted with one array read,
+ * and only the ambiguous ones are resolved with the vocabularies.
+ * <p>
+ * A dictionary is created fully by {@link DictionaryBuilder} (or read from
+ * a {@link DictionarySnapshot}) and is never modified afterward.  Its
+ * fields are final, so it is safely published to other threads and can be
+ * read concurrently without locking.  Loading more data creates a new
+ * dictionary.
+ * <p>
+ * The static methods of {@link ChineseHelper} use the dictionary returned
+ * by {@link ChineseHelper#getDictionary() ChineseHelper.getDictionary()}.
+ */
+public final class ChineseDictionary {
+
+  /** A dictionary with no data. */
+  public static final ChineseDictionary EMPTY = new ChineseDictionary(
+    new ArrayList<CCharacter>(), new CharTable(),
+    new VocabTrie(new TreeMap<String, CCharacter[]>()));
+
+  /** Maximum length of the vocabularies used to find the CCharacter of
+   *  an ambiguous character.
+   */
+  private static final int MAX_WINDOW = PackedVocabTable.MAX_LENGTH;
+
+  /** Number of characters before and after a character that may affect
+   *  its conversion in {@link ConversionMode#WINDOW WINDOW} mode.
+   */
+  public static final int CONTEXT_LENGTH = MAX_WINDOW - 1;
+
+  /** The CCharacters in the order they were loaded. */
+  private final CCharacter[] cChars;
+
+  /** Table from character to CCharacter[]. */
+  private final CharTable charToCChar;
+
+  /** Index from vocabluary string to CCharacter[]. */
+  private final VocabIndex vocabToCChar;
+
+  /** Forms of the characters in traditional form. */
+  private final FormTable tradForms;
+
+  /** Forms of the characters in simplified form. */
+  private final FormTable simpForms;
+
+  /** Weight of the first rank in pinyin order, above any character. */
+  static final int PINYIN_WEIGHT_BASE = 0x10000;
+
+  /** Rank in pinyin order of each CCharacter of this dictionary. */
+  private final IdentityHashMap<CCharacter, Integer> pinyinRanks;
+
+  /** Constructor of a dictionary for resolving the CCharacters of vocabularies
+   *  while DictionaryBuilder builds the mappings.  It has no CCharacters and
+   *  no form or pinyin tables, so only toCChars() and toCChar() can be used.
+   */
+  ChineseDictionary(CharTable charToCChar, VocabIndex vocabToCChar) {
+    this.cChars = new CCharacter[0];
+    this.charToCChar = charToCChar;
+    this.vocabToCChar = vocabToCChar;
+    this.tradForms = null;
+    this.simpForms = null;
+    this.pinyinRanks = null;
+  }
+
+  /** Constructor with the mappings, which must not be modified afterward.
+   */
+  ChineseDictionary(List<CCharacter> cChars, CharTable charToCChar,
+    VocabIndex vocabToCChar) {
+    this.cChars = cChars.toArray(new CCharacter[cChars.size()]);
+    this.charToCChar = charToCChar;
+    this.vocabToCChar = vocabToCChar;
+    this.tradForms = new FormTable(charToCChar, true);
+    this.simpForms = new FormTable(charToCChar, false);
+    this.pinyinRanks = indexRanks(this.cChars, rankPinyin(this.cChars));
+  }
+
+  /** Constructor with the mappings and the tables derived from them, as
+   *  read from a {@link DictionarySnapshot}, which must not be modified.
+   *
+   * @param cChars The CCharacters in the order they were loaded
+   * @param charToCChar Table from character to CCharacter[]
+   * @param vocabToCChar Index from vocabulary string to CCharacter[]
+   * @param tradForms Forms of the characters in traditional form
+   * @param simpForms Forms of the characters in simplified form
+   * @param ranks Rank in pinyin order of each CCharacter in cChars
+   */
+  ChineseDictionary(CCharacter[] cChars, CharTable charToCChar, VocabIndex vocabToCChar,
+    FormTable tradForms, FormTable simpForms, int[] ranks) {
+    this.cChars = cChars;
+    this.charToCChar = charToCChar;
+    this.vocabToCChar = vocabToCChar;
+    this.tradForms = tradForms;
+    this.simpForms = simpForms;
+    this.pinyinRanks = indexRanks(cChars, ranks);
+  }
+
+  /** Returns a map from each CCharacter to its rank. */
+  private static IdentityHashMap<CCharacter, Integer> indexRanks(CCharacter[] cChars, int[] ranks) {
+    IdentityHashMap<CCharacter, Integer> map = new IdentityHashMap<CCharacter, Integer>(2*cChars.length);
+    for (int i = 0; i < cChars.length; i++) map.put(cChars[i], ranks[i]);
+    return map;
+  }
+
+  /**
+   * Rank the CCharacters in pinyin order: by syllable, then tone, then the
+   * simplified character.  Those without a pinyin come after all those
+   * with one, by the simplified character.  CCharacters equal in this
+   * order get the same rank.
+   *
+   * @return The rank of each CCharacter, in the same order.
+   */
+  private static int[] rankPinyin(CCharacter[] cChars) {
+    int n = cChars.length;
+    final String[] keys = new String[n];
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      CCharacter cc = cChars[i];
+      String pinyin = (cc.pronounce == null || cc.pronounce.pinyin == null) ? ""
+        : cc.pronounce.pinyin.trim().toLowerCase(Locale.ROOT).replace("u:", "v");
+      // a tone digit sorts before any letter, so "ba4" < "ban1"
+      keys[i] = ((pinyin.isEmpty()) ? "1" : "0" + pinyin) + "\u0000" + cc.simpChar;
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      public int compare(Integer i1, Integer i2) {
+        return keys[i1].compareTo(keys[i2]);
+      }
+    });
+
+    int[] ranks = new int[n];
+    int rank = -1;
+    for (int k = 0; k < n; k++) {
+      if (k == 0 || !keys[order[k]].equals(keys[order[k-1]])) rank++;
+      ranks[order[k]] = rank;
+    }
+    return ranks;
+  }
+
+  /** Returns the rank of the CCharacter in pinyin order, which is by
+   *  syllable, then tone, then the simplified character, with those
+   *  without a pinyin last.  The ranks are dense from zero.
+   *
+   * @param cc A CCharacter of this dictionary
+   * @return The rank, or -1 if the CCharacter is not in this dictionary.
+   */
+  public int getPinyinRank(CCharacter cc) {
+    Integer rank = pinyinRanks.get(cc);
+    return (rank == null) ? -1 : rank;
+  }
+
+  /** Returns the weight of the CCharacter for comparing with PINYIN_FOLD_FORM:
+   *  PINYIN_WEIGHT_BASE plus its rank in pinyin order, so it comes after any
+   *  character without mapping.  A CCharacter not in this dictionary
+   *  weighs its simplified character.
+   */
+  int getPinyinWeight(CCharacter cc) {
+    int rank = getPinyinRank(cc);
+    return (rank < 0) ? cc.simpChar : PINYIN_WEIGHT_BASE + rank;
+  }
+
+  /**
+   * Load the Chinese character data in UTF-8 format from the input stream
+   * and return a new dictionary with the data of the base dictionary
+   * followed by the loaded data.  The input stream is left open.
+   *
+   * @param in InputStream for the Chinese character data
+   * @param base The dictionary whose data come first, e.g. EMPTY.
+   * @return A new dictionary.
+   * @throws IOException If an error occurred when reading from the
+   *   input stream.
+   */
+  public static ChineseDictionary load(InputStream in, ChineseDictionary base)
+  throws IOException {
+    DictionaryBuilder builder = new DictionaryBuilder();
+    for (CCharacter cchar : base.cChars) builder.add(cchar);  // keep those already loaded
+
+    char[] data = DictionaryParser.readAll(in);
+    DictionaryParser.parse(data, 0, data.length, builder);
+    return builder.build();
+  }
+
+  /** Returns the number of CCharacters. */
+  public int size() {
+    return cChars.length;
+  }
+
+  /** Returns the CCharacters in the order they were loaded, as a read-only list. */
+  public List<CCharacter> getCChars() {
+    return Collections.unmodifiableList(Arrays.asList(cChars));
+  }
+
+  /** Returns the number of CCharacter entries (data lines) that are in
+   *  only one of this and the other dictionary.  A modified entry counts
+   *  once for each dictionary.
+   */
+  public int countChanges(ChineseDictionary other) {
+    HashMap<String, Integer> counts = new HashMap<String, Integer>();
+    for (CCharacter cc : cChars) {
+      String s = cc.toString();
+      Integer m = counts.get(s);
+      counts.put(s, (m == null) ? 1 : m + 1);
+    }
+
+    int changes = 0;
+    for (CCharacter cc : other.cChars) {
+      String s = cc.toString();
+      Integer m = counts.get(s);
+      if (m == null || m == 0) changes++;  // only in the other one
+      else counts.put(s, m - 1);
+    }
+    for (Integer m : counts.values()) changes += m;  // only in this one
+    return changes;
+  }
+
+  /** Returns the table from character to CCharacter[]. */
+  CharTable getCharTable() {
+    return charToCChar;
+  }
+
+  /** Returns the index from vocabulary string to CCharacter[]. */
+  VocabIndex getVocabIndex() {
+    return vocabToCChar;
+  }
+
+  /** Returns the forms of the characters in traditional or simplified form. */
+  FormTable getFormTable(boolean traditional) {
+    return (traditional) ? tradForms : simpForms;
+  }
+
+  /** Returns true if the character is in any vocabulary, so it may
+   *  affect the conversion of the characters around it.  Text split before
+   *  a character not in any vocabulary converts the same in its parts as
+   *  a whole in {@link ConversionMode#WINDOW WINDOW} mode.
+   */
+  boolean isVocabChar(char c) {
+    return vocabToCChar.contains(c);
+  }
+
+  /** For any Chinese characters in the input character array, find the
+   *  corresponding CCharacter and return them as an array.
+   *  See {@link ChineseHelper#toCChars(char[] chars) ChineseHelper.toCChars()}.
+   *
+   * @param chars A character array
+   * @return An array of CCharacter.  The array element is null for any
+   *  input character without mapping to a CCharacter.
+   */
+  public CCharacter[] toCChars(char[] chars) {
+    int n = chars.length;
+    CCharacter[] cchars = new CCharacter[n];
+    for (int i = 0; i < n; i++) cchars[i] = toCChar(chars, 0, n, i);
+    return cchars;
+  }
+
+  /** Find the CCharacter of the character chars[i], using only the
+   *  characters in chars[start, end) as its context.  The result is the
+   *  same as that of toCChars() on chars[start, end), and depends only on
+   *  the CONTEXT_LENGTH characters before and after the character.
+   *
+   * @param chars A character array
+   * @param start The start of the context
+   * @param end The end of the context
+   * @param i The index of the character, in [start, end)
+   * @return The CCharacter, or null if the character has no mapping.
+   */
+  public CCharacter toCChar(char[] chars, int start, int end, int i) {
+    CCharacter[] cca = charToCChar.get(chars[i]);
+    if (cca == null || cca.length == 0) return null;  // no mapping found
+    return resolve(chars, start, end, i, cca);
+  }
+
+  /** Convert the character chars[i] to traditional or simplified form,
+   *  using only the characters in chars[start, end) as its context.
+   */
+  char convert(char[] chars, int start, int end, int i, boolean traditional) {
+    char c = chars[i];
+    FormTable forms = (traditional) ? tradForms : simpForms;
+    if (!forms.isAmbiguous(c)) return forms.get(c);
+    CCharacter cc = resolve(chars, start, end, i, charToCChar.get(c));
+    return (traditional) ? cc.tradChar : cc.simpChar;
+  }
+
+  /** Find the CCharacter of the character chars[i] among its CCharacters,
+   *  using only the characters in chars[start, end) as its context.
+   */
+  private CCharacter resolve(char[] chars, int start, int end, int i, CCharacter[] cca) {
+    char c = chars[i];
+    if (cca.length == 1) {
+      if (ChineseHelper.debug >= 4) ChineseHelper.show(">> " + c + " => " + cca[0].toString());
+      return cca[0];
+    }
+
+    // try using vocabs of lengths [2,4] to narrow it down.
+    CCharacter[] cca2 = null;
+    // Longer vocab strings have priority, then the later start.
+    // Each window is packed into a long, so no String is created.
+    search:
+    for (int len = MAX_WINDOW; len >= 2; len--) {
+      for (int d = 0; d < len; d++) {
+	int s = i - d;
+	if (s < start || s + len > end) continue;
+	cca2 = vocabToCChar.getPacked(PackedVocabTable.pack(chars, s, len), len);
+	if (cca2 != null) {
+	  if (ChineseHelper.debug >= 2) ChineseHelper.show(">> " + c + "/" + String.valueOf(chars, s, len) + " => " + cca2[0].toString());
+	  break search;
+	}
+      }
+    }
+
+    return pick(cca, cca2);
+  }
+
+  /** For any Chinese characters in the input character array, find the
+   *  corresponding CCharacter using the specified mode and return them
+   *  as an array.
+   *
+   * @param chars A character array
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @return An array of CCharacter.  The array element is null for any
+   *  input character without mapping to a CCharacter.
+   */
+  public CCharacter[] toCChars(char[] chars, ConversionMode mode) {
+    if (mode == ConversionMode.WINDOW) return toCChars(chars);
+
+    int n = chars.length;
+    CCharacter[] cchars = new CCharacter[n];
+    int[] ends = segment(chars, mode == ConversionMode.BIDIRECTIONAL_MAXIMUM_MATCH);
+
+    for (int s = 0; s < n; s = ends[s]) {
+      int len = ends[s] - s;
+      CCharacter[] cca2 = (len >= 2) ? vocabToCChar.get(chars, s, len) : null;
+      if (cca2 != null && ChineseHelper.debug >= 2) ChineseHelper.show(">> " + String.valueOf(chars, s, len) + " => " + cca2[0].toString());
+
+      for (int i = s; i < ends[s]; i++) {
+	CCharacter[] cca = charToCChar.get(chars[i]);
+	if (cca == null || cca.length == 0) continue;  // no mapping
+	cchars[i] = (cca.length == 1) ? cca[0] : pick(cca, cca2);
+      }
+    }
+
+    return cchars;
+  }
+
+  /**
+   * Segment the input character array by maximum matching against the
+   * vocabularies.  The time taken is linear in the length of the array
+   * times the length of the longest vocabulary.
+   *
+   * @param chars A character array
+   * @param bidirectional If true, segment in both directions and use the
+   *   better one, otherwise segment from left to right.
+   * @return The end of the segment starting at each start of segment.
+   */
+  private int[] segment(char[] chars, boolean bidirectional) {
+    int n = chars.length;
+
+    // One walk from each start finds all the vocabs there
+    int[] longest = new int[n];  // longest vocab starting at each position
+    int[] longestEnding = new int[n+1];  // longest vocab ending at each position
+    int[] lengths = new int[n];
+    for (int p = 0; p < n; p++) {
+      int m = vocabToCChar.match(chars, p, n - p, lengths);
+      if (m == 0) continue;
+      longest[p] = lengths[m-1];
+      for (int k = 0; k < m; k++) {
+	int e = p + lengths[k];
+	if (lengths[k] > longestEnding[e]) longestEnding[e] = lengths[k];
+      }
+    }
+
+    int[] forward = new int[n+1];
+    int segments = 0;
+    int singles = 0;
+    for (int p = 0; p < n; p = forward[p]) {
+      forward[p] = p + Math.max(longest[p], 1);
+      segments++;
+      if (forward[p] == p + 1) singles++;
+    }
+    if (!bidirectional) return forward;
+
+    int[] backward = new int[n+1];
+    int bSegments = 0;
+    int bSingles = 0;
+    for (int e = n; e > 0; ) {
+      int p = e - Math.max(longestEnding[e], 1);
+      backward[p] = e;
+      bSegments++;
+      if (p == e - 1) bSingles++;
+      e = p;
+    }
+
+    if (segments < bSegments || (segments == bSegments && singles < bSingles)) return forward;
+    return backward;
+  }
+
+  /** Returns the first CCharacter of the vocab that is also a CCharacter
+   *  of the character, or the first CCharacter of the character if none.
+   *
+   * @param cca The CCharacters of the character
+   * @param cca2 The CCharacters of the vocab, or null if none
+   */
+  private static CCharacter pick(CCharacter[] cca, CCharacter[] cca2) {
+    if (cca2 != null) {  // even if cca2 has only 1 element, need to be sure it overlaps cca
+      for (CCharacter cc2 : cca2) {  // find overlap of two sets
+	for (CCharacter cc1 : cca) {
+	  if (cc1 == cc2) return cc1;
+	}
+      }
+    }
+    return cca[0];  // pick first one if no overlap
+  }
+
+  /** For any Chinese characters in the input character array, convert them
+   *  to the traditional form.
+   *
+   * @param chars A character array
+   * @return A string in the traditional form and is equal to the
+   *  input string when the Chinese character form is ignored.
+   */
+  public String toTraditional(char[] chars) {
+    return convert(chars, true, ConversionMode.WINDOW);
+  }
+
+  /** For any Chinese characters in the input character array, convert them
+   *  to the traditional form using the specified mode.
+   *
+   * @param chars A character array
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @return A string in the traditional form and is equal to the
+   *  input string when the Chinese character form is ignored.
+   */
+  public String toTraditional(char[] chars, ConversionMode mode) {
+    return convert(chars, true, mode);
+  }
+
+  /** For any Chinese characters in the input character array, convert them
+   *  to the simplified form.
+   *
+   * @param chars A character array
+   * @return A string in the simplified form and is equal to the
+   *  input string when the Chinese character form is ignored.
+   */
+  public String toSimplified(char[] chars) {
+    return convert(chars, false, ConversionMode.WINDOW);
+  }
+
+  /** For any Chinese characters in the input character array, convert them
+   *  to the simplified form using the specified mode.
+   *
+   * @param chars A character array
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @return A string in the simplified form and is equal to the
+   *  input string when the Chinese character form is ignored.
+   */
+  public String toSimplified(char[] chars, ConversionMode mode) {
+    return convert(chars, false, mode);
+  }
+
+  /** Convert the input character array to traditional or simplified form
+   *  using the specified mode.
+   *
+   * @param chars A character array
+   * @param traditional If true, convert to traditional form, otherwise
+   *   convert to simplified form.
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @return The converted string.
+   */
+  public String convert(char[] chars, boolean traditional, ConversionMode mode) {
+    if (mode == ConversionMode.WINDOW) {  // resolve inline without CCharacter[]
+      char[] dest = new char[chars.length];
+      convert(chars, 0, chars.length, 0, chars.length, traditional, dest, 0);
+      return new String(dest);
+    }
+
+    CCharacter[] cca = toCChars(chars, mode);
+
+    StringBuilder sb = new StringBuilder();
+    int n = chars.length;
+    for (int i = 0; i < n; i++) {
+      CCharacter cc = cca[i];
+      if (cc != null) {
+	sb.append((traditional) ? cc.tradChar : cc.simpChar);
+      } else { // no mapping found, use original
+        sb.append(chars[i]);
+      }
+    }
+    return sb.toString();
+  }
+
+  /** Convert chars[start, end) to traditional or simplified form and
+   *  append the result to the output.  Each ambiguous character is resolved
+   *  inline, as in {@link ConversionMode#WINDOW WINDOW} mode, so nothing is
+   *  allocated besides what the output allocates.
+   *
+   * @param chars A character array
+   * @param start The start of the characters to convert
+   * @param end The end of the characters to convert
+   * @param traditional If true, convert to traditional form, otherwise
+   *   convert to simplified form.
+   * @param out The output to append to
+   * @throws IOException If an error occurred when appending to the output.
+   */
+  public void convert(char[] chars, int start, int end, boolean traditional, Appendable out)
+  throws IOException {
+    FormTable forms = (traditional) ? tradForms : simpForms;
+    CharBuffer seq = null;  // chars as a CharSequence, for appending a run
+    for (int i = start; i < end; ) {
+      // append the run of characters not changed at once
+      int r = i;
+      while (r < end && !forms.mayChange(chars[r])) r++;
+      if (r - i == 1) {
+	out.append(chars[i]);
+      } else if (r > i) {
+	if (seq == null) seq = CharBuffer.wrap(chars);
+	out.append(seq, i, r);
+      }
+      if (r == end) break;
+
+      out.append(convert(chars, start, end, r, traditional));
+      i = r + 1;
+    }
+  }
+
+  /** Convert chars[start, end) to traditional or simplified form and
+   *  write the result to the destination array.  Each ambiguous character
+   *  is resolved inline, as in {@link ConversionMode#WINDOW WINDOW} mode,
+   *  so nothing is allocated.
+   *
+   * @param chars A character array
+   * @param start The start of the characters to convert
+   * @param end The end of the characters to convert
+   * @param traditional If true, convert to traditional form, otherwise
+   *   convert to simplified form.
+   * @param dest The destination array, which must not overlap chars[start, end)
+   * @param destOff The index in dest to write the first character to
+   * @return The index in dest after the last character written.
+   */
+  public int convert(char[] chars, int start, int end, boolean traditional,
+    char[] dest, int destOff) {
+    return convert(chars, start, end, start, end, traditional, dest, destOff);
+  }
+
+  /** Convert chars[from, to) to traditional or simplified form, using the
+   *  characters in chars[start, end) as the context, and write the result
+   *  to the destination array.
+   *
+   * @return The index in dest after the last character written.
+   */
+  int convert(char[] chars, int start, int end, int from, int to, boolean traditional,
+    char[] dest, int destOff) {
+    if (destOff < 0 || destOff + (to - from) > dest.length) {
+      throw new IndexOutOfBoundsException("ChineseDictionary.convert: destination too small");
+    }
+    FormTable forms = (traditional) ? tradForms : simpForms;
+    int o = destOff;
+    for (int i = from; i < to; i++) {
+      char c = chars[i];
+      if (!forms.isAmbiguous(c)) {
+	dest[o++] = forms.get(c);
+      } else {
+	CCharacter cc = resolve(chars, start, end, i, charToCChar.get(c));
+	dest[o++] = (traditional) ? cc.tradChar : cc.simpChar;
+      }
+    }
+    return o;
+  }
+
+  /** For any Chinese characters in the input string, convert them
+   *  to the traditional form.
+   *
+   * @param s A string
+   * @return A string in the traditional form, which is the input string
+   *  itself if no character is changed.
+   */
+  public String toTraditional(String s) {
+    return convert(s, true);
+  }
+
+  /** For any Chinese characters in the input string, convert them
+   *  to the simplified form.
+   *
+   * @param s A string
+   * @return A string in the simplified form, which is the input string
+   *  itself if no character is changed.
+   */
+  public String toSimplified(String s) {
+    return convert(s, false);
+  }
+
+  /** Convert the input string to traditional or simplified form, returning
+   *  the input string itself if no character is changed.
+   */
+  private String convert(String s, boolean traditional) {
+    // find the first character that may change, whatever its context
+    FormTable forms = (traditional) ? tradForms : simpForms;
+    int n = s.length();
+    int first = 0;
+    while (first < n && !forms.mayChange(s.charAt(first))) first++;
+    if (first == n) return s;
+
+    char[] chars = s.toCharArray();
+    char[] dest = new char[n];
+    System.arraycopy(chars, 0, dest, 0, first);
+    convert(chars, 0, n, first, n, traditional, dest, first);
+    return (Arrays.equals(chars, dest)) ? s : new String(dest);
+  }
+
+  /** For any Chinese characters in the input character array, convert them
+   *  to the traditional form and append the result to the output.
+   *
+   * @param chars A character array
+   * @param out The output to append to
+   * @throws IOException If an error occurred when appending to the output.
+   */
+  public void toTraditional(char[] chars, Appendable out) throws IOException {
+    convert(chars, 0, chars.length, true, out);
+  }
+
+  /** For any Chinese characters in the input character array, convert them
+   *  to the traditional form and write the result to the destination array.
+   *
+   * @param chars A character array
+   * @param dest The destination array, which must not be chars
+   * @param destOff The index in dest to write the first character to
+   * @return The index in dest after the last character written.
+   */
+  public int toTraditional(char[] chars, char[] dest, int destOff) {
+    return convert(chars, 0, chars.length, true, dest, destOff);
+  }
+
+  /** For any Chinese characters in the input character array, convert them
+   *  to the simplified form and append the result to the output.
+   *
+   * @param chars A character array
+   * @param out The output to append to
+   * @throws IOException If an error occurred when appending to the output.
+   */
+  public void toSimplified(char[] chars, Appendable out) throws IOException {
+    convert(chars, 0, chars.length, false, out);
+  }
+
+  /** For any Chinese characters in the input character array, convert them
+   *  to the simplified form and write the result to the destination array.
+   *
+   * @param chars A character array
+   * @param dest The destination array, which must not be chars
+   * @param destOff The index in dest to write the first character to
+   * @return The index in dest after the last character written.
+   */
+  public int toSimplified(char[] chars, char[] dest, int destOff) {
+    return convert(chars, 0, chars.length, false, dest, destOff);
+  }
+
+}
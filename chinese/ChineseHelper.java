@@ -25,10 +25,15 @@ import java.io.*;
 import java.util.*;
 import java.util.regex.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicReference;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
-import util.ArrayHelper;
 import util.StringHelper;
 import util.StringHelper.Comparison;
 import io.StreamHelper;
@@ -51,6 +56,7 @@ import io.StreamHelper;
  * <li>2013-09 Moved enumeration of options for comparison to StringHelper.java.
  *   Added compareNatural(), toInt(), isDigit(), isPower10Chinese(), etc.
  *   Changed digits to char[].
+ * <li>2026-10 Moved the data and mappings to the immutable ChineseDictionary.java.
  * </ul> 
  */
 public class ChineseHelper {
@@ -67,25 +73,36 @@ public class ChineseHelper {
    */
   public static final String CSV_FILE = "chinese.csv";
 
-  /** Pattern for matching the current traditional char. */
+  /** Pattern for matching the current traditional char.
+   *  @deprecated No longer used by load(). See {@link DictionaryParser}.
+   */
+  @Deprecated
   public static Pattern currentCharPattern = Pattern.compile("[~\uff5e]");
 
-  /** Pattern for splitting concepts. */
+  /** Pattern for splitting concepts.
+   *  @deprecated No longer used by load(). See {@link DictionaryParser}.
+   */
+  @Deprecated
   public static Pattern conceptDilimiter = Pattern.compile("[,\uff0c]");
 
-  /** Pattern for splitting vocabluaries in a concept. */
+  /** Pattern for splitting vocabluaries in a concept.
+   *  @deprecated No longer used by load(). See {@link DictionaryParser}.
+   */
+  @Deprecated
   public static Pattern vocabDilimiter = Pattern.compile("[;\uff1b\u3002]");
 
-  /** Vector of CCharacter. */
-  private static Vector<CCharacter> cCharV = new Vector<CCharacter>();
+  /** The dictionary in use, or null if not yet loaded.  The dictionary
+   *  is replaced as a whole and never modified, so it is read without locking.
+   */
+  private static final AtomicReference<ChineseDictionary> dictionary
+    = new AtomicReference<ChineseDictionary>();
 
-  /** Map from character to CCharacter[]. */
-  private static TreeMap<Character, CCharacter[]> charToCChar 
-    = new TreeMap<Character, CCharacter[]>();
+  /** Listeners notified when the dictionary is reloaded. */
+  private static final List<ReloadListener> reloadListeners
+    = new CopyOnWriteArrayList<ReloadListener>();
 
-  /** Map from vocabluary string to CCharacter[]. */
-  private static TreeMap<String, CCharacter[]> vocabToCChar
-    = new TreeMap<String, CCharacter[]>();
+  /** Cache for the conversions of short strings, or null if not used. */
+  private static volatile ConversionCache conversionCache = null;
 
   /** Digits in Unicode. digits[1] is the character for 1, etc.
    *  Note digits[10] is ten in Chinese.
@@ -106,111 +123,24 @@ public class ChineseHelper {
    * the input stream and create the object structure and mappings for use by
    * the static methods.  The data should be in UTF-8 format.
    * The input stream is left open.
+   * <p>
+   * The loaded data are appended to those already loaded, in a new
+   * {@link ChineseDictionary} that replaces the current one once it is
+   * fully built.
    * 
    * @param in InputStream for the Chinese character data
    * @throws Exception If an error occurred when reading from the 
    *   input stream, or the input stream contains a malformed 
    *   ...
    */
-  public static final void load(InputStream in) throws Exception {
+  public static final synchronized void load(InputStream in) throws Exception {
     if (in == null) throw new Exception("ChineseHelper.load: null input stream");
 
-    String line;
-    while ((line = StreamHelper.readLine(in, "UTF-8")) != null) {
-      if (line.length() == 0 || line.charAt(0) == '#') continue; // skip empty or comment line 
-      String[] parts = conceptDilimiter.split(line);
-      
-      String chars = parts[0];
-      
-      int clen = chars.length();
-      if (clen < 2) {
-        show("ChineseHelper.load: invalid line '" + line + "'");
-        continue;
-      }
-      
-      CCharacter cchar = new CCharacter(chars.charAt(1), chars.charAt(0));
-      
-      // Add map entries for each characters
-      for (int i = 0; i < clen; i++) {
-        if (i > 0 && chars.charAt(i) == chars.charAt(i-1)) continue;
-        Character c = new Character(chars.charAt(i));
-        CCharacter[] cca = charToCChar.get(c);
-	if (cca != null) {
-	  int m = cca.length;
-	  cca = Arrays.copyOf(cca, m+1); 
-	  cca[m] = cchar;
-          charToCChar.put(c, cca);  // add mapping to new array
-        } else {
-	  cca = new CCharacter[1];
-	  cca[0] = cchar;
-          charToCChar.put(c, cca);
-        }
-      }
-      
-      if (clen > 2) { // Has variant characters
-        cchar.variants = new char[clen-2];
-	for (int i = 0; i < clen-2; i++) {
-	  cchar.variants[i] = chars.charAt(i+2);
-	}
-      }
-      
-      int len = parts.length;
-      Pronunciation pn = null;
-      if (len >= 2) { // Has pronunciation
-        pn = new Pronunciation(parts[1]);
-      }
-
-      cchar.pronounce = pn;
-      
-      if (len >= 3) { // Has concepts
-	for (int i = 0; i < len-2; i++) {
-	  parts[i+2] = currentCharPattern.matcher(parts[i+2]).replaceAll(chars.substring(1,2));  // replace ~ with trad. char.  (There could be existing simp. char)
-	  String[] vocabs = vocabDilimiter.split(parts[i+2]);
-	  cchar.addConcept(new Concept(vocabs));
-	  
-	  // add vocabs to mapping
-	  for (String v : vocabs) {
-            CCharacter[] cca = vocabToCChar.get(v);
-	    if (cca != null) {
-	      int m = cca.length;
-	      cca = Arrays.copyOf(cca, m+1); 
-	      cca[m] = cchar;
-              vocabToCChar.put(v, cca);  // add mapping to new array
-            } else {
-	      cca = new CCharacter[1];
-	      cca[0] = cchar;
-              vocabToCChar.put(v, cca);
-            }	    
-          }
-	}
-      }
-      
-      cCharV.add(cchar);
-    }
-
-    // convert vocabs to simp and trad forms and add them to mapping
-    String[] vocabs = vocabToCChar.keySet().toArray(new String[vocabToCChar.size()]);
-    for (String v : vocabs) {
-      CCharacter[] cca = vocabToCChar.get(v);
-      
-      String vSimp = toSimplified(v);    
-      CCharacter[] cca1 = vocabToCChar.get(vSimp);
-      if (cca1 != cca) { // implying cca1 != null
-        cca = ArrayHelper.combineUnique(cca, cca1);
-      }
-      
-      String vTrad = toTraditional(v);
-      cca1 = vocabToCChar.get(vTrad);
-      if (cca1 != cca) {  // implying cca1 != null
-        cca = ArrayHelper.combineUnique(cca, cca1);
-      }
-      
-      vocabToCChar.put(vSimp, cca);
-      vocabToCChar.put(vTrad, cca);
-    }
+    ChineseDictionary d = ChineseDictionary.load(in, currentDictionary());
+    dictionary.set(d);
 
     if (debug >= 2) {
-      show("Created " + cCharV.size() + " CCharacters.");
+      show("Created " + d.size() + " CCharacters.");
     }
   }
 
@@ -225,7 +155,7 @@ public class ChineseHelper {
    *   If empty, use the default CSV_FILE.
    * @throws Exception From {@link #load(InputStream in)}
    */
-  public static final void load(String csvFile) throws Exception {
+  public static final synchronized void load(String csvFile) throws Exception {
     if (isEmpty(csvFile)) csvFile = CSV_FILE;
 
     File f = new File(csvFile);  
@@ -237,7 +167,7 @@ public class ChineseHelper {
       FileInputStream fis = new FileInputStream(f);
       try {
         load(fis);
-        show("ChineseHelper.load: got " + cCharV.size() + " Chinese phonetic characters from " + csvFile);
+        show("ChineseHelper.load: got " + currentDictionary().size() + " Chinese phonetic characters from " + csvFile);
       } finally {
         fis.close();
       }
@@ -248,7 +178,7 @@ public class ChineseHelper {
       InputStream in = ClassLoader.getSystemResourceAsStream("chinese/" + csvFile);
       try {
         load(in);
-        show("ChineseHelper.load: got " + cCharV.size() + " Chinese phonetic characters from " + url);
+        show("ChineseHelper.load: got " + currentDictionary().size() + " Chinese phonetic characters from " + url);
       } finally {
         in.close();
       }
@@ -259,8 +189,106 @@ public class ChineseHelper {
 
   }
 
+  /**
+   * Returns the dictionary in use, loading the default CSV file if no data
+   * have been loaded.  The dictionary is immutable, so a caller that keeps
+   * it gets consistent results even if other data are loaded meanwhile.
+   *
+   * @return The dictionary in use.  It is empty if no data can be loaded.
+   * @throws Exception From {@link #load(String csvFile)}
+   */
+  public static ChineseDictionary getDictionary() throws Exception {
+    ChineseDictionary d = dictionary.get();
+    if (d == null) {
+      synchronized (ChineseHelper.class) {
+        if (dictionary.get() == null) load(ChineseHelper.CSV_FILE);
+      }
+      d = currentDictionary();
+    }
+    return d;
+  }
+
+  /**
+   * Reload the Chinese character data from the input CSV file in the
+   * background and swap the new dictionary in atomically, replacing all
+   * data loaded before.  The calls in progress finish with the dictionary
+   * they started with, and no reader waits for the reload.  The swap holds
+   * the same lock as load() and loadSnapshot(), so a load in progress
+   * either finishes before the swap or appends to the new dictionary.
+   * Once the new dictionary is in use, the reload listeners are notified.
+   *
+   * @param csvFile CSV file containing Chinese character data.
+   * @return A future completed with the new dictionary after it is swapped
+   *   in, or completed exceptionally if the file cannot be read.
+   */
+  public static CompletableFuture<ChineseDictionary> reload(final Path csvFile) {
+    return CompletableFuture.supplyAsync(() -> {
+      long start = System.nanoTime();
+      ChineseDictionary d;
+      try (InputStream in = Files.newInputStream(csvFile)) {
+        d = ChineseDictionary.load(in, ChineseDictionary.EMPTY);
+      } catch (IOException e) {
+        show("ChineseHelper.reload: cannot read " + csvFile + ": " + e);
+        throw new CompletionException(e);
+      }
+      long built = System.nanoTime();
+
+      ChineseDictionary previous;
+      synchronized (ChineseHelper.class) {  // not between the read and set of a load
+        previous = dictionary.getAndSet(d);
+      }
+      long swapped = System.nanoTime();
+      if (previous == null) previous = ChineseDictionary.EMPTY;
+      ConversionCache cache = conversionCache;
+      if (cache != null) cache.clear();  // release the old results now
+
+      if (debug >= 2) {
+        show("ChineseHelper.reload: got " + d.size() + " Chinese phonetic characters from "
+          + csvFile + " in " + ((built - start) / 1000000) + " ms");
+      }
+      if (!reloadListeners.isEmpty()) {
+        int changes = previous.countChanges(d);
+        for (ReloadListener listener : reloadListeners) {
+          listener.reloaded(previous, d, built - start, swapped - built, changes);
+        }
+      }
+      return d;
+    });
+  }
+
+  /** Add a listener to be notified when the dictionary is reloaded. */
+  public static void addReloadListener(ReloadListener listener) {
+    reloadListeners.add(listener);
+  }
+
+  /** Remove a listener added by addReloadListener(). */
+  public static void removeReloadListener(ReloadListener listener) {
+    reloadListeners.remove(listener);
+  }
+
+  /**
+   * Set the cache used by toTraditional(), toSimplified() and toCChars()
+   * for short strings.  The cache is not used by default.
+   *
+   * @param cache The cache, or null to stop using a cache.
+   */
+  public static void setConversionCache(ConversionCache cache) {
+    conversionCache = cache;
+  }
+
+  /** Returns the cache set by setConversionCache(), or null if none. */
+  public static ConversionCache getConversionCache() {
+    return conversionCache;
+  }
+
+  /** Returns the dictionary in use without loading it, or the empty one. */
+  private static ChineseDictionary currentDictionary() {
+    ChineseDictionary d = dictionary.get();
+    return (d != null) ? d : ChineseDictionary.EMPTY;
+  }
+
   /** 
-   * Save the Chinese character data (cCharV) as CSVs to the specified file.  
+   * Save the Chinese character data (CCharacters) as CSVs to the specified file.  
    * The data are in the same order as they are read. 
    *
    * @param csvFile Name of CSV file for saving the data.
@@ -273,7 +301,7 @@ public class ChineseHelper {
     FileOutputStream fos = new FileOutputStream(f);
     OutputStreamWriter osw = new OutputStreamWriter(fos, "UTF-8");
     try {
-      for (CCharacter cChar : cCharV) {
+      for (CCharacter cChar : currentDictionary().getCChars()) {
         String tmp = cChar.toString();
         osw.write(tmp, 0, tmp.length());
 	osw.write(StreamHelper.CR);
@@ -286,6 +314,39 @@ public class ChineseHelper {
     }
   }
 
+  /**
+   * Save the loaded Chinese character data as a compiled binary snapshot
+   * to the specified file.  The snapshot can be loaded much faster than the
+   * CSV file by {@link #loadSnapshot(String snapshotFile) loadSnapshot()}.
+   * See {@link DictionarySnapshot DictionarySnapshot.java} for the format.
+   *
+   * @param snapshotFile Name of the snapshot file.
+   * @throws Exception If the input file name is empty, or an error occurred
+   *   when writing the file.
+   */
+  public static final void saveSnapshot(String snapshotFile) throws Exception {
+    if (isEmpty(snapshotFile)) throw new Exception("ChineseHelper.saveSnapshot: empty input file name");
+    DictionarySnapshot.write(currentDictionary(), new File(snapshotFile));
+  }
+
+  /**
+   * Load the Chinese character data from a snapshot file written by
+   * {@link #saveSnapshot(String snapshotFile) saveSnapshot()}.
+   * The file is memory-mapped and replaces any data already loaded.
+   *
+   * @param snapshotFile Name of the snapshot file.
+   * @throws Exception If the input file name is empty, or the file
+   *   is not a valid snapshot.
+   */
+  public static final synchronized void loadSnapshot(String snapshotFile) throws Exception {
+    if (isEmpty(snapshotFile)) throw new Exception("ChineseHelper.loadSnapshot: empty input file name");
+    ChineseDictionary d = DictionarySnapshot.read(new File(snapshotFile));
+    dictionary.set(d);
+    if (debug >= 2) {
+      show("ChineseHelper.loadSnapshot: got " + d.size() + " Chinese phonetic characters from " + snapshotFile);
+    }
+  }
+
   /** 
    * Check whether the simpl, trad, and variant forms appear in cannonical
    * order.  Output those not in order to the specified file.  
@@ -339,6 +400,22 @@ public class ChineseHelper {
    */
   public static final void convert(String inFile, String outFile, boolean traditional)
   throws Exception {
+    convert(inFile, outFile, traditional, ConversionMode.WINDOW);
+  }
+
+  /** 
+   * Convert the input file to the specified form using the specified mode
+   * and write the data to the output file.
+   *
+   * @param inFile Name of input file
+   * @param outFile Name of output file
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @throws Exception If the input or output file name is empty.
+   */
+  public static final void convert(String inFile, String outFile, boolean traditional,
+    ConversionMode mode) throws Exception {
     if (isEmpty(inFile)) throw new Exception("ChineseHelper.save: empty input file name");
     if (isEmpty(outFile)) throw new Exception("ChineseHelper.save: empty output file name");
 
@@ -351,9 +428,10 @@ public class ChineseHelper {
     OutputStreamWriter osw = new OutputStreamWriter(fos, "UTF-8");
 
     try {
+      ChineseDictionary d = getDictionary();  // same dictionary for the whole file
       char[] line;
       while ((line = StreamHelper.readLine(isr)) != null) {
-        String tmp = (traditional) ? toTraditional(line) : toSimplified(line);
+        String tmp = d.convert(line, traditional, mode);
         osw.write(tmp, 0, tmp.length());
         osw.write(StreamHelper.CR);
         osw.write(StreamHelper.LF);
@@ -369,6 +447,42 @@ public class ChineseHelper {
 
   }
 
+  /** 
+   * Convert the input file to the specified form on all cores and write
+   * the data to the output file.  The output is the same as that of
+   * {@link #convert(String inFile, String outFile, boolean traditional) convert()}.
+   * See {@link FileConverter}.
+   *
+   * @param inFile Name of input file
+   * @param outFile Name of output file
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @throws Exception If the input or output file name is empty.
+   */
+  public static final void convertParallel(String inFile, String outFile, boolean traditional)
+  throws Exception {
+    convertParallel(inFile, outFile, traditional, ConversionMode.WINDOW);
+  }
+
+  /** 
+   * Convert the input file to the specified form using the specified mode
+   * on all cores and write the data to the output file.
+   *
+   * @param inFile Name of input file
+   * @param outFile Name of output file
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @throws Exception If the input or output file name is empty.
+   */
+  public static final void convertParallel(String inFile, String outFile, boolean traditional,
+    ConversionMode mode) throws Exception {
+    if (isEmpty(inFile)) throw new Exception("ChineseHelper.convertParallel: empty input file name");
+    if (isEmpty(outFile)) throw new Exception("ChineseHelper.convertParallel: empty output file name");
+
+    FileConverter.convert(new File(inFile), new File(outFile), getDictionary(), traditional, mode);
+  }
+
   /** For any Chinese characters in the input character array, find the
    *  corresponding CCharacter and return them as an array.
    * <p>
@@ -381,66 +495,10 @@ public class ChineseHelper {
    * @throw Exception If the input argument is null.
    */
   public static CCharacter[] toCChars(char[] chars) throws Exception {
-    if (charToCChar.size() == 0) load(ChineseHelper.CSV_FILE);
+    ChineseDictionary d = getDictionary();
     if (chars == null) throw new Exception("ChineseHelper.toCChars: input array is null");
-    int n = chars.length;
-    CCharacter[] cchars = new CCharacter[n];
-    
-    for (int i = 0; i < n; i++) {
-      Character c = new Character(chars[i]);
-      CCharacter[] cca = charToCChar.get(c);
-      if (cca != null && cca.length > 0) {
-        CCharacter cc = null;
-	if (cca.length == 1) {
-	  cchars[i] = cca[0];
-	  if (debug >= 4) show(">> " + c + " => " + cca[0].toString());
-
-	} else { // try using vocabs of lengths [2,4] to narrow it down.
-	  String[] vocabs = new String[9];
-	  if (i > 0) vocabs[0] = String.valueOf(chars, i-1, 2);
-	  if (i <= n-2) vocabs[1] = String.valueOf(chars, i, 2);
-	  if (i > 1) vocabs[2] = String.valueOf(chars, i-2, 3);
-	  if (i > 0 && i <= n-2) vocabs[3] = String.valueOf(chars, i-1, 3);
-	  if (i <= n-3) vocabs[4] = String.valueOf(chars, i, 3);
-	  if (i > 2) vocabs[5] = String.valueOf(chars, i-3, 4);
-	  if (i > 1 && i <= n-2) vocabs[6] = String.valueOf(chars, i-2, 4);
-	  if (i > 0 && i <= n-3) vocabs[7] = String.valueOf(chars, i-1, 4);
-	  if (i <= n-4) vocabs[8] = String.valueOf(chars, i, 4);
-	  
-	  CCharacter[] cca2 = null;
-	  // Search in reverse so longer vocab strings have priority
-          for (int j = vocabs.length-1; j >= 0; j--) {
-	    String s = vocabs[j];
-	    if (s == null) continue;
-	    cca2 = vocabToCChar.get(s);	    
-	    if (cca2 != null) {
-	      if (debug >= 2) show(">> " + c + "/" + s + " => " + cca2[0].toString());
-	      break;
-	    }
-	  }
-	  
-	  if (cca2 == null || cca2.length == 0) { // no mapping from vocab
-  	    cchars[i] = cca[0];  // pick first one	
-  
-	  } else {  // even if cca2 has only 1 element, need to be sure it overlaps cca
-	    for (CCharacter cc2 : cca2) {  // find overlap of two sets
- 	      for (CCharacter cc1 : cca) {
-	        if (cc1 == cc2) {
-		  cchars[i] = cc1;
-		  break;
-		}
-	      }
-	      if (cchars[i] != null) break;
-            }
-  	    
-	    if (cchars[i] == null) cchars[i] = cca[0]; // pick first one if no overlap
-	  }	    
-	}
-
-      } // if no mapping found, just skip it
-    }
-    
-    return cchars;
+    ConversionCache cache = conversionCache;
+    return (cache != null) ? cache.toCChars(d, chars) : d.toCChars(chars);
   }
  
   /** Determines whether the two input strings are the same when the
@@ -468,8 +526,9 @@ public class ChineseHelper {
   throws Exception {
     if (chars1.length != chars1.length) return false;
 
-    CCharacter[] cca1 = ChineseHelper.toCChars(chars1);
-    CCharacter[] cca2 = ChineseHelper.toCChars(chars2);
+    ChineseDictionary d = getDictionary();  // same dictionary for both
+    CCharacter[] cca1 = d.toCChars(chars1);
+    CCharacter[] cca2 = d.toCChars(chars2);
     int n1 = cca1.length, n2 = cca2.length;
     
     if (n1 != n2) return false;
@@ -500,6 +559,10 @@ public class ChineseHelper {
    * </li>
    * </ol>
    * <p>
+   * The characters are mapped only as the comparison reaches them, each with
+   * its local vocabulary context, so the comparison stops at the first
+   * difference without mapping the rest of the arrays.
+   * <p>
    * Caution: Calling program must handle the case of null input parameter, since this 
    * method does not check them or throw exception.
    *   
@@ -510,6 +573,9 @@ public class ChineseHelper {
    *   LEXICAL is just the standard Java system string comparison.
    *   FOLD_CASE is treated the same as FOLD_FORM, and 
    *   IGNORE_CASE is treated the same as IGNORE_FORM.
+   *   PINYIN_FOLD_FORM is FOLD_FORM with the Chinese characters compared
+   *   by pinyin, after any character without mapping.  See
+   *   {@link ChineseDictionary#getPinyinRank(CCharacter cc) ChineseDictionary.getPinyinRank()}.
    * @return Zero if the char arrays are the same based on the comparison option.
    *   A positive integer if s1 > s2, negative if s1 &lt; s2.
    */
@@ -520,10 +586,9 @@ public class ChineseHelper {
     
     int result = 0;
     
-    CCharacter[] cca1, cca2;    
+    ChineseDictionary d;
     try {
-      cca1 = ChineseHelper.toCChars(chars1);
-      cca2 = ChineseHelper.toCChars(chars2);
+      d = getDictionary();  // same dictionary for both
     } catch (Exception e) {
       // If for some reason ChineseHelper could not map the characters,
       // the arrays will be compared lexicographically
@@ -536,7 +601,8 @@ public class ChineseHelper {
       }
     }
       
-    int n1 = cca1.length, n2 = cca2.length;
+    // Each character is resolved only when reached, with its local context
+    int n1 = chars1.length, n2 = chars2.length;
 
     int i1=0, i2=0;
     while (true) {
@@ -559,8 +625,8 @@ public class ChineseHelper {
         continue;
       }
 
-      CCharacter cc1 = (i1 >= n1) ? null : cca1[i1];
-      CCharacter cc2 = (i2 >= n2) ? null : cca2[i2];
+      CCharacter cc1 = (i1 >= n1) ? null : d.toCChar(chars1, 0, n1, i1);
+      CCharacter cc2 = (i2 >= n2) ? null : d.toCChar(chars2, 0, n2, i2);
    
       if (cc1 == null && cc2 == null) { // no mapping to CCharacter
         if (option == Comparison.IGNORE_FORM || option == Comparison.FOLD_FORM
@@ -575,13 +641,13 @@ public class ChineseHelper {
         if (result != 0) return result; // return upon difference
 	
       } else if (cc1 == null) {
-        return c1 - cc2.simpChar;
+        return c1 - weigh(d, cc2, option);
 	
       } else if (cc2 == null) {
-        return cc1.simpChar - c2;
+        return weigh(d, cc1, option) - c2;
 	
       } else { // both have mapping to CCharacter
-        result = cc1.simpChar - cc2.simpChar; // compare simplified char
+        result = weigh(d, cc1, option) - weigh(d, cc2, option); // compare simplified char or pinyin
         if (result != 0) return result; // return upon difference
       }
       
@@ -589,6 +655,13 @@ public class ChineseHelper {
     }    
   }
 
+  /** Returns the weight of a CCharacter for comparing with the option:
+   *  its pinyin weight for PINYIN_FOLD_FORM, otherwise its simplified char.
+   */
+  private static int weigh(ChineseDictionary d, CCharacter cc, Comparison option) {
+    return (option == Comparison.PINYIN_FOLD_FORM) ? d.getPinyinWeight(cc) : cc.simpChar;
+  }
+
   /** Compare the two input strings using the input option.  This is a
    *  convenient method for invoking {@link chinese.ChineseHelper#compare(char[], char[], util.StringHelper.Comparison) compare(chars1, chars2, option)}.
    *
@@ -633,6 +706,22 @@ public class ChineseHelper {
     return compare(s1.toCharArray(), s2.toCharArray(), Comparison.IGNORE_FORM);
   }
 
+  /** Returns the collation key of the input string, which compares with
+   *  other keys of the same option in the same order as
+   *  {@link #compare(String s1, String s2, Comparison option) compare()}.
+   *  Use it to sort many strings, mapping each only once.
+   *
+   * @param s The input string
+   * @param option One of the option for comparison.
+   *   See {@link util.StringHelper.Comparison StringHelper.Comparison}.
+   * @return The collation key.
+   * @throws Exception If the dictionary cannot be loaded.
+   */
+  public static ChineseCollationKey getCollationKey(String s, Comparison option)
+  throws Exception {
+    return new ChineseCollationKey(getDictionary(), s, option);
+  }
+
   /**
    * Compare the two input character arrays in a 'natural' fashion.  That is,
    * collapse the spaces, treat number pair with priority and compare 
@@ -683,7 +772,8 @@ public class ChineseHelper {
    *   LEXICAL is default.
    *   FOLD_CASE is treated the same as FOLD_FORM, and 
    *   IGNORE_CASE is treated the same as IGNORE_FORM.
-   *   PINYIN_FOLD_FORM is not yet implemented.
+   *   PINYIN_FOLD_FORM orders Chinese characters by pinyin, see
+   *   {@link ChineseDictionary#getPinyinRank(CCharacter cc) ChineseDictionary.getPinyinRank()}.
    * @return Zero if the char arrays are the same based on the comparison option.
    *   A positive integer if s1 &gt; s2, negative if s1 &lt; s2.
    * @see test.TestChineseHelper 
@@ -711,10 +801,9 @@ public class ChineseHelper {
     char[] chars1 = toDecimal(ca1);
     char[] chars2 = toDecimal(ca2);
     
-    CCharacter[] cca1, cca2;    
+    ChineseDictionary d;
     try {
-      cca1 = ChineseHelper.toCChars(chars1);
-      cca2 = ChineseHelper.toCChars(chars2);
+      d = getDictionary();  // same dictionary for both
     } catch (Exception e) {
       // If for some reason ChineseHelper could not map the characters,
       // the arrays will be compared lexicographically
@@ -727,7 +816,8 @@ public class ChineseHelper {
       }
     }
 
-    int n1 = cca1.length, n2 = cca2.length;
+    // Each character is resolved only when reached, with its local context
+    int n1 = chars1.length, n2 = chars2.length;
 
     int i1=0, i2=0;
     boolean skipped = false;
@@ -834,10 +924,11 @@ public class ChineseHelper {
         continue;
       }
 
-      CCharacter cc1 = (i1 >= n1) ? null : cca1[i1];
-      CCharacter cc2 = (i2 >= n2) ? null : cca2[i2];
+      boolean lexical = option == Comparison.LEXICAL;  // no mapping needed
+      CCharacter cc1 = (i1 >= n1 || lexical) ? null : d.toCChar(chars1, 0, n1, i1);
+      CCharacter cc2 = (i2 >= n2 || lexical) ? null : d.toCChar(chars2, 0, n2, i2);
    
-      if (option == Comparison.LEXICAL) {
+      if (lexical) {
         result = (c1isDigit ? ChineseHelper.toInt(c1) : c1)
           - (c2isDigit ? ChineseHelper.toInt(c2) : c2); 
 	  // compare them lexicographically after mapping to integer as needed
@@ -859,10 +950,10 @@ public class ChineseHelper {
 	
       } else if (cc1 == null) {
         return (c1isDigit ? ChineseHelper.toInt(c1) : c1) 
-	  - (c2isDigit ? ChineseHelper.toInt(c2) : cc2.simpChar);
+	  - (c2isDigit ? ChineseHelper.toInt(c2) : weigh(d, cc2, option));
 	
       } else if (cc2 == null) {
-        return (c1isDigit ? ChineseHelper.toInt(c1) : cc1.simpChar) 
+        return (c1isDigit ? ChineseHelper.toInt(c1) : weigh(d, cc1, option)) 
 	  - (c2isDigit ? ChineseHelper.toInt(c2) : c2);
 	
       } else { // both have mapping to CCharacter.  Compare integer or simplified char
@@ -870,10 +961,9 @@ public class ChineseHelper {
          || option == Comparison.FOLD_FORM || option == Comparison.FOLD_CASE) {
          result = (c1isDigit ? ChineseHelper.toInt(c1) : cc1.simpChar)
            - (c2isDigit ? ChineseHelper.toInt(c2) : cc2.simpChar);
-	} else if (option == Comparison.PINYIN_FOLD_FORM) { 
-	  // No yet implemented.  Treated as FOLD_FORM for now
-         result = (c1isDigit ? ChineseHelper.toInt(c1) : cc1.simpChar)
-           - (c2isDigit ? ChineseHelper.toInt(c2) : cc2.simpChar);
+	} else if (option == Comparison.PINYIN_FOLD_FORM) { // compare integer or pinyin
+         result = (c1isDigit ? ChineseHelper.toInt(c1) : d.getPinyinWeight(cc1))
+           - (c2isDigit ? ChineseHelper.toInt(c2) : d.getPinyinWeight(cc2));
         }
         if (result != 0) return result; // return upon difference
       }
@@ -910,6 +1000,36 @@ public class ChineseHelper {
     return compareNatural(s1.toCharArray(), s2.toCharArray(), Comparison.LEXICAL);
   }
 
+  /** Returns a byte array whose unsigned lexicographic order among the
+   *  keys of other strings is the order of
+   *  {@link #compareNatural(String s1, String s2, Comparison option) compareNatural()}.
+   *  See {@link SortKeyEncoder}.
+   *
+   * @param s The input string
+   * @param option One of the option for comparison.
+   *   See {@link util.StringHelper.Comparison StringHelper.Comparison}.
+   * @return The sort key.
+   * @throws Exception If the dictionary cannot be loaded.
+   */
+  public static byte[] toNaturalSortKey(String s, Comparison option) throws Exception {
+    return SortKeyEncoder.encodeNatural(getDictionary(), s, option);
+  }
+
+  /** Returns the natural sort key of the input string, which compares
+   *  with other keys of the same option in the same order as
+   *  {@link #compareNatural(String s1, String s2, Comparison option) compareNatural()}.
+   *  Use it to sort many strings, mapping each only once.
+   *
+   * @param s The input string
+   * @param option One of the option for comparison.
+   *   See {@link util.StringHelper.Comparison StringHelper.Comparison}.
+   * @return The natural sort key.
+   * @throws Exception If the dictionary cannot be loaded.
+   */
+  public static NaturalSortKey getNaturalSortKey(String s, Comparison option) throws Exception {
+    return new NaturalSortKey(getDictionary(), s, option);
+  }
+
   /** For any Chinese characters in the input character array, convert them 
    *  to the traditional form.
    *
@@ -918,19 +1038,9 @@ public class ChineseHelper {
    *  input string when the Chinese character form is ignored.
    */
   public static String toTraditional(char[] chars) throws Exception {
-    CCharacter[] cca = ChineseHelper.toCChars(chars);
-  
-    StringBuilder sb = new StringBuilder();    
-    int n = chars.length;
-    for (int i = 0; i < n; i++) {
-      CCharacter cc = cca[i];
-      if (cc != null) {
-	sb.append(cc.tradChar);
-      } else { // no mapping found, use original
-        sb.append(chars[i]);
-      }
-    }
-    return sb.toString();
+    ChineseDictionary d = getDictionary();
+    if (chars == null) throw new Exception("ChineseHelper.toTraditional: input array is null");
+    return d.toTraditional(chars);
   }
 
   /** For any Chinese characters in the input string, convert them 
@@ -938,10 +1048,40 @@ public class ChineseHelper {
    *
    * @param s First input string
    * @return A string in the traditional form and is equal to the 
-   *  input string when the Chinese character form is ignored.
+   *  input string when the Chinese character form is ignored.  It is the input
+   *  string itself if no character is changed.
    */
   public static String toTraditional(String s) throws Exception {
-    return toTraditional(s.toCharArray());
+    ChineseDictionary d = getDictionary();
+    if (s == null) throw new Exception("ChineseHelper.toTraditional: input string is null");
+    ConversionCache cache = conversionCache;
+    return (cache != null) ? cache.toTraditional(d, s) : d.toTraditional(s);
+  }
+
+  /** For any Chinese characters in the input character array, convert them 
+   *  to the traditional form using the specified mode.
+   *
+   * @param chars A character array
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @return A string in the traditional form and is equal to the 
+   *  input string when the Chinese character form is ignored.
+   */
+  public static String toTraditional(char[] chars, ConversionMode mode) throws Exception {
+    ChineseDictionary d = getDictionary();
+    if (chars == null) throw new Exception("ChineseHelper.toTraditional: input array is null");
+    return d.toTraditional(chars, mode);
+  }
+
+  /** For any Chinese characters in the input string, convert them 
+   *  to the traditional form using the specified mode.
+   *
+   * @param s First input string
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @return A string in the traditional form and is equal to the 
+   *  input string when the Chinese character form is ignored.
+   */
+  public static String toTraditional(String s, ConversionMode mode) throws Exception {
+    return toTraditional(s.toCharArray(), mode);
   }
   
   /** For any Chinese characters in the input character array, convert them 
@@ -952,19 +1092,9 @@ public class ChineseHelper {
    *  input string when the Chinese character form is ignored.
    */
   public static String toSimplified(char[] chars) throws Exception {
-    CCharacter[] cca = ChineseHelper.toCChars(chars);
-  
-    StringBuilder sb = new StringBuilder();    
-    int n = chars.length;
-    for (int i = 0; i < n; i++) {
-      CCharacter cc = cca[i];
-      if (cc != null) {
-	sb.append(cc.simpChar);
-      } else { // no mapping found, use original
-        sb.append(chars[i]);
-      }
-    }
-    return sb.toString();
+    ChineseDictionary d = getDictionary();
+    if (chars == null) throw new Exception("ChineseHelper.toSimplified: input array is null");
+    return d.toSimplified(chars);
   }
 
   /** For any Chinese characters in the input string, convert them 
@@ -972,10 +1102,126 @@ public class ChineseHelper {
    *
    * @param s First input string
    * @return A string in the simplified form and is equal to the 
-   *  input string when the Chinese character form is ignored.
+   *  input string when the Chinese character form is ignored.  It is the input
+   *  string itself if no character is changed.
    */
   public static String toSimplified(String s) throws Exception {
-    return toSimplified(s.toCharArray());
+    ChineseDictionary d = getDictionary();
+    if (s == null) throw new Exception("ChineseHelper.toSimplified: input string is null");
+    ConversionCache cache = conversionCache;
+    return (cache != null) ? cache.toSimplified(d, s) : d.toSimplified(s);
+  }
+
+  /** For any Chinese characters in the input character array, convert them 
+   *  to the simplified form using the specified mode.
+   *
+   * @param chars A character array
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @return A string in the simplified form and is equal to the 
+   *  input string when the Chinese character form is ignored.
+   */
+  public static String toSimplified(char[] chars, ConversionMode mode) throws Exception {
+    ChineseDictionary d = getDictionary();
+    if (chars == null) throw new Exception("ChineseHelper.toSimplified: input array is null");
+    return d.toSimplified(chars, mode);
+  }
+
+  /** For any Chinese characters in the input string, convert them 
+   *  to the simplified form using the specified mode.
+   *
+   * @param s First input string
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @return A string in the simplified form and is equal to the 
+   *  input string when the Chinese character form is ignored.
+   */
+  public static String toSimplified(String s, ConversionMode mode) throws Exception {
+    return toSimplified(s.toCharArray(), mode);
+  }
+
+  /** Convert the input strings to the traditional form in parallel.
+   *  See {@link BatchConverter}.
+   *
+   * @param strings The strings to convert
+   * @param dedupe If true, convert identical strings only once.
+   * @return The converted strings, in the same order.
+   * @throws Exception If the input argument is null.
+   */
+  public static String[] toTraditional(String[] strings, boolean dedupe) throws Exception {
+    ChineseDictionary d = getDictionary();
+    if (strings == null) throw new Exception("ChineseHelper.toTraditional: input array is null");
+    return BatchConverter.convert(d, strings, true, dedupe);
+  }
+
+  /** Convert the input strings to the traditional form in parallel.
+   *  See {@link BatchConverter}.
+   *
+   * @param strings The strings to convert
+   * @param dedupe If true, convert identical strings only once.
+   * @return The converted strings, in the same order, as a new list.
+   * @throws Exception If the input argument is null.
+   */
+  public static List<String> toTraditional(List<String> strings, boolean dedupe) throws Exception {
+    ChineseDictionary d = getDictionary();
+    if (strings == null) throw new Exception("ChineseHelper.toTraditional: input list is null");
+    return BatchConverter.convert(d, strings, true, dedupe);
+  }
+
+  /** Convert the input strings to the simplified form in parallel.
+   *  See {@link BatchConverter}.
+   *
+   * @param strings The strings to convert
+   * @param dedupe If true, convert identical strings only once.
+   * @return The converted strings, in the same order.
+   * @throws Exception If the input argument is null.
+   */
+  public static String[] toSimplified(String[] strings, boolean dedupe) throws Exception {
+    ChineseDictionary d = getDictionary();
+    if (strings == null) throw new Exception("ChineseHelper.toSimplified: input array is null");
+    return BatchConverter.convert(d, strings, false, dedupe);
+  }
+
+  /** Convert the input strings to the simplified form in parallel.
+   *  See {@link BatchConverter}.
+   *
+   * @param strings The strings to convert
+   * @param dedupe If true, convert identical strings only once.
+   * @return The converted strings, in the same order, as a new list.
+   * @throws Exception If the input argument is null.
+   */
+  public static List<String> toSimplified(List<String> strings, boolean dedupe) throws Exception {
+    ChineseDictionary d = getDictionary();
+    if (strings == null) throw new Exception("ChineseHelper.toSimplified: input list is null");
+    return BatchConverter.convert(d, strings, false, dedupe);
+  }
+
+  /** For any Chinese characters in the input character array, convert them 
+   *  to the traditional form and append the result to the output, without
+   *  creating any intermediate array or string.
+   *
+   * @param chars A character array
+   * @param out The output to append to
+   * @throws Exception If the input argument is null, or an error occurred
+   *  when appending to the output.
+   */
+  public static void toTraditional(char[] chars, Appendable out) throws Exception {
+    ChineseDictionary d = getDictionary();
+    if (chars == null) throw new Exception("ChineseHelper.toTraditional: input array is null");
+    d.toTraditional(chars, out);
+  }
+
+  /** For any Chinese characters in the input character array, convert them 
+   *  to the simplified form and append the result to the output, without
+   *  creating any intermediate array or string.
+   *
+   * @param chars A character array
+   * @param out The output to append to
+   * @throws Exception If the input argument is null, or an error occurred
+   *  when appending to the output.
+   */
+  public static void toSimplified(char[] chars, Appendable out) throws Exception {
+    ChineseDictionary d = getDictionary();
+    if (chars == null) throw new Exception("ChineseHelper.toSimplified: input array is null");
+    d.toSimplified(chars, out);
   }
 
   /** Determine whether the input character is a
@@ -0,0 +1,181 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ChineseStreams.java - Stream helpers and collectors for converting,
+ *   folding and counting large texts.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stream helpers and collectors for converting, folding and counting
+ * texts with a dictionary.
+ * <p>
+ * {@link #segments(CharSequence text, ChineseDictionary dictionary, boolean parallel)
+ * segments()} streams a text as the segments of a {@link TextSpliterator},
+ * which convert independently of each other.  The collectors convert each
+ * element of a stream on its own and join the results in the order of the
+ * stream, so collecting the segments of a text, sequentially or in
+ * parallel, gives the same result as converting the whole text in
+ * {@link ConversionMode#WINDOW WINDOW} mode.
+ * <p>
+ * For example, to convert a large text on all cores:
+ * <pre><code> String s = ChineseStreams.segments(text, dictionary, true)
+ *   .collect(ChineseStreams.converting(dictionary, true));</code></pre>
+ */
+public class ChineseStreams {
+
+  /**
+   * Returns a stream of the segments of the text, which convert
+   * independently of each other.
+   *
+   * @param text The text
+   * @param dictionary The dictionary for the conversion
+   * @param parallel If true, returns a parallel stream.
+   * @return A stream of the segments in order.
+   */
+  public static Stream<CharSequence> segments(CharSequence text, ChineseDictionary dictionary,
+    boolean parallel) {
+    return StreamSupport.stream(new TextSpliterator(text, dictionary), parallel);
+  }
+
+  /**
+   * Convert the text to the traditional form, in parallel if specified.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param text The text
+   * @param parallel If true, convert the segments of the text in parallel.
+   * @return The text in the traditional form.
+   */
+  public static String toTraditional(ChineseDictionary dictionary, CharSequence text,
+    boolean parallel) {
+    return segments(text, dictionary, parallel).collect(converting(dictionary, true));
+  }
+
+  /**
+   * Convert the text to the simplified form, in parallel if specified.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param text The text
+   * @param parallel If true, convert the segments of the text in parallel.
+   * @return The text in the simplified form.
+   */
+  public static String toSimplified(ChineseDictionary dictionary, CharSequence text,
+    boolean parallel) {
+    return segments(text, dictionary, parallel).collect(converting(dictionary, false));
+  }
+
+  /**
+   * Fold the text, in parallel if specified.  See
+   * {@link #folding(ChineseDictionary dictionary) folding()}.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param text The text
+   * @param parallel If true, fold the segments of the text in parallel.
+   * @return The folded text.
+   */
+  public static String fold(ChineseDictionary dictionary, CharSequence text, boolean parallel) {
+    return segments(text, dictionary, parallel).collect(folding(dictionary));
+  }
+
+  /**
+   * Count the characters of the text changed by the conversion, in
+   * parallel if specified.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param text The text
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @param parallel If true, count the segments of the text in parallel.
+   * @return The number of characters changed.
+   */
+  public static long countChanges(ChineseDictionary dictionary, CharSequence text,
+    boolean traditional, boolean parallel) {
+    return segments(text, dictionary, parallel).collect(countingChanges(dictionary, traditional));
+  }
+
+  /**
+   * Returns a collector that converts each element to traditional or
+   * simplified form and joins the results in order.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   */
+  public static Collector<CharSequence, ?, String> converting(final ChineseDictionary dictionary,
+    final boolean traditional) {
+    return Collector.of(StringBuilder::new,
+      (sb, seq) -> {
+        char[] chars = seq.toString().toCharArray();
+        char[] dest = new char[chars.length];
+        dictionary.convert(chars, 0, chars.length, traditional, dest, 0);
+        sb.append(dest);
+      },
+      StringBuilder::append, StringBuilder::toString);
+  }
+
+  /**
+   * Returns a collector that folds each element and joins the results in
+   * order.  A Chinese character is folded to the simplified form of its
+   * CCharacter, and any other character to its upper case, as
+   * {@link ChineseHelper#compare(char[] chars1, char[] chars2, util.StringHelper.Comparison option)
+   * ChineseHelper.compare()} does with IGNORE_FORM.
+   *
+   * @param dictionary The dictionary for the conversion
+   */
+  public static Collector<CharSequence, ?, String> folding(final ChineseDictionary dictionary) {
+    return Collector.of(StringBuilder::new,
+      (sb, seq) -> {
+        char[] chars = seq.toString().toCharArray();
+        CCharacter[] cca = dictionary.toCChars(chars);
+        for (int i = 0; i < chars.length; i++) {
+          chars[i] = (cca[i] != null) ? cca[i].simpChar
+            : Character.toUpperCase(Character.toLowerCase(chars[i]));
+        }
+        sb.append(chars);
+      },
+      StringBuilder::append, StringBuilder::toString);
+  }
+
+  /**
+   * Returns a collector that counts the characters of the elements changed
+   * by the conversion.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   */
+  public static Collector<CharSequence, ?, Long> countingChanges(
+    final ChineseDictionary dictionary, final boolean traditional) {
+    return Collector.of(() -> new long[1],
+      (count, seq) -> {
+        char[] chars = seq.toString().toCharArray();
+        char[] dest = new char[chars.length];
+        dictionary.convert(chars, 0, chars.length, traditional, dest, 0);
+        for (int i = 0; i < chars.length; i++) {
+          if (dest[i] != chars[i]) count[0]++;
+        }
+      },
+      (a, b) -> { a[0] += b[0]; return a; },
+      count -> count[0]);
+  }
+
+}
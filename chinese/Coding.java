@@ -25,6 +25,20 @@ package chinese;
  */
 public class Coding {
 
+  /** Returns true if the input byte (0 to 255) is the first byte of a Big5 code,
+   *  i.e. from A1 to FE.
+   */
+  public static final boolean isBig5Lead(int b) {
+    return b >= 0xA1 && b <= 0xFE;
+  }
+
+  /** Returns true if the input byte (0 to 255) is the second byte of a Big5 code,
+   *  i.e. from 40 to 7E or A1 to FE.
+   */
+  public static final boolean isBig5Trail(int b) {
+    return (b >= 0x40 && b <= 0x7E) || (b >= 0xA1 && b <= 0xFE);
+  }
+
   /** Detect Big5 double bytes and return the number of bytes
    *  consistent with Big5 encoding.  It scans from "start"
    *  and stop at the first non-Big5 code. 
@@ -43,10 +57,8 @@ public class Coding {
     if (buf == null || buf.length < 2) return 0;
     int i;
     for (i=start; i<buf.length-1; i += 2) {
-      int b1 = buf[i] & 0xFF;
-      if (b1 < 0xA1 || b1 > 0xFE) break;
-      int b2 = buf[i+1] & 0xFF;
-      if (b2 < 0x40 || (b2 > 0x7E && b2 < 0xA1) || b2 > 0xFE) break;
+      if (!isBig5Lead(buf[i] & 0xFF)) break;
+      if (!isBig5Trail(buf[i+1] & 0xFF)) break;
     }
     return (i-start);  // always even, or zero
   }
@@ -69,14 +81,12 @@ public class Coding {
     int count = 0;
     int i;
     for (i=start; i<buf.length-1; ) {
-      int b1 = buf[i] & 0xFF;
-      if (b1 < 0xA1 || b1 > 0xFE) { // first byte not matching, go to next
+      if (!isBig5Lead(buf[i] & 0xFF)) { // first byte not matching, go to next
         i++;
         continue;
       } 
 
-      int b2 = buf[i+1] & 0xFF;
-      if (b2 < 0x40 || (b2 > 0x7E && b2 < 0xA1) || b2 > 0xFE) {
+      if (!isBig5Trail(buf[i+1] & 0xFF)) {
         // second byte not matching, go to next pair
         i += 2;
         continue;
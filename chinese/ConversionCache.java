@@ -0,0 +1,237 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ConversionCache.java - A bounded cache of the conversion results of
+ *   short strings.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the results of toTraditional(), toSimplified() and
+ * toCChars() for strings up to a maximum length.  It is safe for
+ * concurrent use.
+ * <p>
+ * Each entry counts how often it is used.  When the cache grows beyond
+ * its maximum number of entries, about a tenth of the entries, the least
+ * frequently used first, are evicted at once, and the counts of the rest
+ * are halved so that entries used long ago can be evicted too.
+ * <p>
+ * The cache is bound to one dictionary.  When it is used with a different
+ * dictionary, such as after {@link ChineseHelper#reload(java.nio.file.Path csvFile)
+ * ChineseHelper.reload()}, it is cleared first, so it never returns a
+ * result of another dictionary.
+ * <p>
+ * It is enabled for the static methods of ChineseHelper by
+ * {@link ChineseHelper#setConversionCache(ConversionCache cache)
+ * ChineseHelper.setConversionCache()}.
+ */
+public class ConversionCache {
+
+  /** Maximum number of entries. */
+  private final int maxEntries;
+
+  /** Maximum length of a string to cache. */
+  private final int maxKeyLength;
+
+  /** The entries for the dictionary they were computed with. */
+  private volatile State state = new State(null);
+
+  /** Number of results found in the cache. */
+  private final LongAdder hits = new LongAdder();
+
+  /** Number of results not found in the cache. */
+  private final LongAdder misses = new LongAdder();
+
+  /** Number of entries evicted. */
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries Maximum number of strings to cache
+   * @param maxKeyLength Maximum length of a string to cache.  Longer strings
+   *   are converted without the cache and not counted.
+   */
+  public ConversionCache(int maxEntries, int maxKeyLength) {
+    if (maxEntries <= 0) throw new IllegalArgumentException("ConversionCache: maxEntries must be positive");
+    if (maxKeyLength < 0) throw new IllegalArgumentException("ConversionCache: negative maxKeyLength");
+    this.maxEntries = maxEntries;
+    this.maxKeyLength = maxKeyLength;
+  }
+
+  /** Returns the maximum number of entries. */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /** Returns the maximum length of a string to cache. */
+  public int getMaxKeyLength() {
+    return maxKeyLength;
+  }
+
+  /** Returns the number of results found in the cache. */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /** Returns the number of results not found in the cache. */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** Returns the number of entries evicted. */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /** Returns the number of entries. */
+  public int size() {
+    return state.entries.size();
+  }
+
+  /** Remove all entries. */
+  public void clear() {
+    state = new State(state.dictionary);
+  }
+
+  /** Convert the input string to the traditional form with the dictionary.
+   *  See {@link ChineseDictionary#toTraditional(String s) ChineseDictionary.toTraditional()}.
+   */
+  public String toTraditional(ChineseDictionary dictionary, String s) {
+    if (s.length() > maxKeyLength) return dictionary.toTraditional(s);
+    Entry e = entry(dictionary, s);
+    String result = e.traditional;
+    if (result != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+      e.traditional = result = dictionary.toTraditional(s);
+    }
+    return result;
+  }
+
+  /** Convert the input string to the simplified form with the dictionary.
+   *  See {@link ChineseDictionary#toSimplified(String s) ChineseDictionary.toSimplified()}.
+   */
+  public String toSimplified(ChineseDictionary dictionary, String s) {
+    if (s.length() > maxKeyLength) return dictionary.toSimplified(s);
+    Entry e = entry(dictionary, s);
+    String result = e.simplified;
+    if (result != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+      e.simplified = result = dictionary.toSimplified(s);
+    }
+    return result;
+  }
+
+  /** Find the CCharacters of the input characters with the dictionary.
+   *  See {@link ChineseDictionary#toCChars(char[] chars) ChineseDictionary.toCChars()}.
+   *
+   * @return A new array, which the caller may modify.
+   */
+  public CCharacter[] toCChars(ChineseDictionary dictionary, char[] chars) {
+    if (chars.length > maxKeyLength) return dictionary.toCChars(chars);
+    Entry e = entry(dictionary, new String(chars));
+    CCharacter[] result = e.cchars;
+    if (result != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+      e.cchars = result = dictionary.toCChars(chars);
+    }
+    return result.clone();
+  }
+
+  /** Returns the entry of the string for the dictionary, creating it if needed. */
+  private Entry entry(ChineseDictionary dictionary, String s) {
+    State st = state;
+    if (st.dictionary != dictionary) {  // computed with another dictionary
+      st = new State(dictionary);
+      state = st;
+    }
+
+    Entry e = st.entries.get(s);
+    if (e == null) {
+      e = new Entry();
+      Entry prev = st.entries.putIfAbsent(s, e);
+      if (prev != null) e = prev;
+      else if (st.entries.size() > maxEntries) evict(st);
+    }
+    if (e.frequency < Integer.MAX_VALUE) e.frequency++;  // approximate under contention
+    return e;
+  }
+
+  /** Evict about a tenth of the entries, the least frequently used first,
+   *  and halve the frequencies of the rest.
+   */
+  private void evict(State st) {
+    synchronized (st) {
+      int size = st.entries.size();
+      if (size <= maxEntries) return;  // evicted by another thread
+
+      int[] frequencies = new int[size];
+      int n = 0;
+      for (Entry e : st.entries.values()) {
+        if (n == frequencies.length) break;
+        frequencies[n++] = e.frequency;
+      }
+      if (n == 0) return;
+      Arrays.sort(frequencies, 0, n);
+      int target = Math.max(size - maxEntries, maxEntries / 10);
+      int threshold = frequencies[Math.min(target, n) - 1];
+
+      int evicted = 0;
+      Iterator<Entry> it = st.entries.values().iterator();
+      while (it.hasNext()) {
+        Entry e = it.next();
+        if (evicted < target && e.frequency <= threshold) {
+          it.remove();
+          evicted++;
+        } else {
+          e.frequency >>>= 1;
+        }
+      }
+      evictions.add(evicted);
+    }
+  }
+
+  /** The entries computed with a dictionary. */
+  private static class State {
+    final ChineseDictionary dictionary;
+    final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    State(ChineseDictionary dictionary) {
+      this.dictionary = dictionary;
+    }
+  }
+
+  /** The results for a string, each computed when first needed. */
+  private static class Entry {
+    volatile String traditional;
+    volatile String simplified;
+    volatile CCharacter[] cchars;
+    volatile int frequency;
+  }
+
+}
@@ -0,0 +1,50 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ConversionMode.java - How the vocabularies are used to find the
+ *   CCharacter of an ambiguous character.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+/**
+ * How the vocabularies are used to find the CCharacter of a character
+ * that maps to more than one CCharacter, e.g. in
+ * {@link ChineseDictionary#toCChars(char[] chars, ConversionMode mode)
+ * ChineseDictionary.toCChars()}.
+ */
+public enum ConversionMode {
+
+  /** Each ambiguous character is resolved on its own by the longest
+   *  vocabulary of 2 to 4 characters around it.  This is the default.
+   */
+  WINDOW,
+
+  /** The input is segmented once from left to right, taking the longest
+   *  vocabulary at each position.  Each character is resolved by the
+   *  vocabulary it falls into.
+   */
+  FORWARD_MAXIMUM_MATCH,
+
+  /** The input is segmented from left to right and from right to left,
+   *  taking the longest vocabulary at each position, and the segmentation
+   *  with fewer segments, then fewer single characters, is used.  On a tie,
+   *  the right to left segmentation is used.
+   */
+  BIDIRECTIONAL_MAXIMUM_MATCH
+
+}
@@ -0,0 +1,286 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ConvertingProcessor.java - A Flow processor that converts chunks of
+ *   text to traditional or simplified form.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Flow.Processor} that converts chunks of text, such as Strings
+ * or CharBuffers, to traditional or simplified form and publishes the
+ * converted text as Strings.
+ * <p>
+ * The chunks are one continuous text.  As with {@link ConvertingWriter},
+ * a character is converted once the {@link ChineseDictionary#CONTEXT_LENGTH
+ * CONTEXT_LENGTH} characters after it have arrived, so the published
+ * text is the same as converting the whole text at once in
+ * {@link ConversionMode#WINDOW WINDOW} mode, no matter where the chunks
+ * break.  Small chunks are batched: the converted text is published once
+ * at least the batch size of characters is ready, and the rest when the
+ * input completes.  A CharBuffer chunk is read without changing its
+ * position.
+ * <p>
+ * The processor requests one chunk at a time from its subscription, only
+ * after the previous one is handled and while every subscriber has
+ * requested more than it has been given, as by
+ * {@link SubmissionPublisher#estimateMinimumDemand() estimateMinimumDemand()}.
+ * A request from a subscriber resumes the upstream, so the slowest
+ * subscriber sets the pace of the upstream.  When all the subscribers
+ * have cancelled, the subscription to the upstream is cancelled and the
+ * processor is closed, and a chunk that still arrives is dropped.  An error from the upstream is passed on to the
+ * subscribers.
+ */
+public class ConvertingProcessor extends SubmissionPublisher<String>
+  implements Flow.Processor<CharSequence, String> {
+
+  /** Default number of characters to batch before publishing. */
+  public static final int DEFAULT_BATCH_SIZE = 8192;
+
+  /** Number of characters before and after a character needed to convert it. */
+  private static final int CONTEXT = ChineseDictionary.CONTEXT_LENGTH;
+
+  /** The dictionary for the conversion. */
+  private final ChineseDictionary dictionary;
+
+  /** If true, convert to traditional form, otherwise to simplified form. */
+  private final boolean traditional;
+
+  /** Number of characters to batch before publishing. */
+  private final int batchSize;
+
+  /** The subscription to the upstream, or null if not subscribed yet. */
+  private volatile Flow.Subscription subscription;
+
+  /** True while a chunk is requested from the upstream and not yet handled. */
+  private final AtomicBoolean requested = new AtomicBoolean();
+
+  /** Characters received, with those already converted at the front kept as context. */
+  private char[] buf;
+
+  /** Index of the next character to convert. */
+  private int pos = 0;
+
+  /** End of the characters received. */
+  private int limit = 0;
+
+  /**
+   * Constructor with the default batch size, publishing asynchronously
+   * on the common ForkJoinPool.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   */
+  public ConvertingProcessor(ChineseDictionary dictionary, boolean traditional) {
+    this(dictionary, traditional, DEFAULT_BATCH_SIZE, ForkJoinPool.commonPool(),
+      Flow.defaultBufferSize());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @param batchSize The number of characters to batch before publishing
+   * @param executor The executor for publishing to the subscribers
+   * @param maxBufferCapacity The maximum number of Strings buffered for
+   *   each subscriber
+   */
+  public ConvertingProcessor(ChineseDictionary dictionary, boolean traditional, int batchSize,
+    Executor executor, int maxBufferCapacity) {
+    super(executor, maxBufferCapacity);
+    if (batchSize <= 0) throw new IllegalArgumentException("ConvertingProcessor: batchSize must be positive");
+    this.dictionary = dictionary;
+    this.traditional = traditional;
+    this.batchSize = batchSize;
+    this.buf = new char[batchSize + 2*CONTEXT];
+  }
+
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (this.subscription != null) {  // only one upstream
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    requestUpstream();
+  }
+
+  public void onNext(CharSequence chunk) {
+    if (isClosed()) {  // all the subscribers have cancelled
+      drop();
+      return;
+    }
+    append(chunk);
+    if (limit - CONTEXT - pos >= batchSize) publish(limit - CONTEXT);
+    requested.set(false);
+    requestUpstream();
+  }
+
+  public void onError(Throwable throwable) {
+    closeExceptionally(throwable);
+  }
+
+  public void onComplete() {
+    if (isClosed()) {
+      drop();
+      return;
+    }
+    publish(limit);
+    close();
+  }
+
+  /**
+   * Add the subscriber.  Its requests and cancellation also drive the
+   * subscription to the upstream.
+   *
+   * @param subscriber The subscriber
+   */
+  public void subscribe(Flow.Subscriber<? super String> subscriber) {
+    if (subscriber == null) throw new NullPointerException();
+    super.subscribe(new Downstream(subscriber));
+  }
+
+  public boolean isSubscribed(Flow.Subscriber<? super String> subscriber) {
+    if (subscriber == null) throw new NullPointerException();
+    return super.isSubscribed(new Downstream(subscriber));
+  }
+
+  public List<Flow.Subscriber<? super String>> getSubscribers() {
+    List<Flow.Subscriber<? super String>> subscribers = new ArrayList<Flow.Subscriber<? super String>>();
+    for (Flow.Subscriber<? super String> s : super.getSubscribers()) {
+      subscribers.add((s instanceof Downstream) ? ((Downstream) s).subscriber : s);
+    }
+    return subscribers;
+  }
+
+  /**
+   * Request the next chunk from the upstream, unless one is requested or
+   * a subscriber has no demand.
+   */
+  private void requestUpstream() {
+    Flow.Subscription s = subscription;
+    if (s != null && estimateMinimumDemand() > 0 && requested.compareAndSet(false, true)) {
+      s.request(1);
+    }
+  }
+
+  /** Cancel the upstream and close if no subscriber is left. */
+  private void cancelUpstream() {
+    if (getNumberOfSubscribers() > 0) return;
+    Flow.Subscription s = subscription;
+    if (s != null) s.cancel();
+    close();
+  }
+
+  /** Append the chunk to the characters received. */
+  private void append(CharSequence chunk) {
+    int n = chunk.length();
+    if (limit + n > buf.length) {  // keep CONTEXT converted characters before pos
+      int keep = Math.max(0, pos - CONTEXT);
+      System.arraycopy(buf, keep, buf, 0, limit - keep);
+      pos -= keep;
+      limit -= keep;
+      if (limit + n > buf.length) buf = Arrays.copyOf(buf, Math.max(2*buf.length, limit + n));
+    }
+
+    if (chunk instanceof String) {
+      ((String) chunk).getChars(0, n, buf, limit);
+    } else if (chunk instanceof CharBuffer) {
+      ((CharBuffer) chunk).duplicate().get(buf, limit, n);
+    } else {
+      for (int i = 0; i < n; i++) buf[limit + i] = chunk.charAt(i);
+    }
+    limit += n;
+  }
+
+  /** Convert the characters up to the input end and publish them. */
+  private void publish(int end) {
+    if (end <= pos) return;
+    char[] out = new char[end - pos];
+    dictionary.convert(buf, 0, limit, pos, end, traditional, out, 0);
+    pos = end;
+    try {
+      submit(new String(out));
+    } catch (IllegalStateException e) {  // closed by the last subscriber cancelling meanwhile
+      if (!isClosed()) throw e;
+      drop();
+    }
+  }
+
+  /** Drop the characters received. */
+  private void drop() {
+    pos = 0;
+    limit = 0;
+  }
+
+  /** A subscriber whose subscription also drives the upstream. */
+  private class Downstream implements Flow.Subscriber<String> {
+    private final Flow.Subscriber<? super String> subscriber;
+
+    Downstream(Flow.Subscriber<? super String> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    public void onSubscribe(final Flow.Subscription subscription) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        public void request(long n) {
+          subscription.request(n);
+          requestUpstream();
+        }
+
+        public void cancel() {
+          subscription.cancel();
+          cancelUpstream();
+        }
+      });
+    }
+
+    public void onNext(String item) {
+      subscriber.onNext(item);
+    }
+
+    public void onError(Throwable throwable) {
+      subscriber.onError(throwable);
+    }
+
+    public void onComplete() {
+      subscriber.onComplete();
+    }
+
+    public boolean equals(Object o) {
+      return (o instanceof Downstream) && ((Downstream) o).subscriber.equals(subscriber);
+    }
+
+    public int hashCode() {
+      return subscriber.hashCode();
+    }
+  }
+
+}
@@ -0,0 +1,138 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ConvertingReader.java - A reader that converts Chinese characters to
+ *   traditional or simplified form as they are read.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.io.*;
+
+/**
+ * A reader that converts the Chinese characters read from another reader
+ * to traditional or simplified form.
+ * <p>
+ * A character is converted once the {@link ChineseDictionary#CONTEXT_LENGTH
+ * CONTEXT_LENGTH} characters after it have been read, and only that many
+ * characters before it are kept.  So the memory used is constant no matter
+ * how long a line is, and the result is the same as converting the whole
+ * text at once in {@link ConversionMode#WINDOW WINDOW} mode.
+ *
+ * @see ConvertingWriter
+ */
+public class ConvertingReader extends Reader {
+
+  /** Number of characters before and after a character needed to convert it. */
+  private static final int CONTEXT = ChineseDictionary.CONTEXT_LENGTH;
+
+  /** The reader to read from. */
+  private Reader in;
+
+  /** The dictionary for the conversion. */
+  private final ChineseDictionary dictionary;
+
+  /** If true, convert to traditional form, otherwise to simplified form. */
+  private final boolean traditional;
+
+  /** Characters read, with those already converted at the front kept as context. */
+  private char[] buf = new char[8192];
+
+  /** Index of the next character to convert. */
+  private int pos = 0;
+
+  /** End of the characters read. */
+  private int limit = 0;
+
+  /** True if the end of the reader has been reached. */
+  private boolean eof = false;
+
+  /**
+   * Constructor using the dictionary of
+   * {@link ChineseHelper#getDictionary() ChineseHelper.getDictionary()}.
+   *
+   * @param in The reader to read from
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @throws Exception If the dictionary cannot be loaded.
+   */
+  public ConvertingReader(Reader in, boolean traditional) throws Exception {
+    this(in, ChineseHelper.getDictionary(), traditional);
+  }
+
+  /**
+   * Constructor with the dictionary for the conversion.
+   *
+   * @param in The reader to read from
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   */
+  public ConvertingReader(Reader in, ChineseDictionary dictionary, boolean traditional) {
+    super(in);
+    this.in = in;
+    this.dictionary = dictionary;
+    this.traditional = traditional;
+  }
+
+  /** Read more characters, keeping CONTEXT converted characters before pos. */
+  private void fill() throws IOException {
+    if (limit == buf.length) {
+      int keep = Math.max(0, pos - CONTEXT);
+      System.arraycopy(buf, keep, buf, 0, limit - keep);
+      pos -= keep;
+      limit -= keep;
+    }
+    int n = in.read(buf, limit, buf.length - limit);
+    if (n < 0) eof = true;
+    else limit += n;
+  }
+
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    synchronized (lock) {
+      if (in == null) throw new IOException("ConvertingReader.read: reader closed");
+      if (off < 0 || len < 0 || off + len > cbuf.length) throw new IndexOutOfBoundsException();
+      if (len == 0) return 0;
+
+      while (!eof && limit - pos <= CONTEXT) fill();
+      int avail = (eof) ? limit - pos : limit - pos - CONTEXT;
+      if (avail <= 0) return -1;
+
+      int n = Math.min(len, avail);
+      dictionary.convert(buf, 0, limit, pos, pos + n, traditional, cbuf, off);
+      pos += n;
+      return n;
+    }
+  }
+
+  public boolean ready() throws IOException {
+    synchronized (lock) {
+      if (in == null) throw new IOException("ConvertingReader.ready: reader closed");
+      return (eof) ? pos < limit : limit - pos > CONTEXT;
+    }
+  }
+
+  public void close() throws IOException {
+    synchronized (lock) {
+      if (in == null) return;
+      in.close();
+      in = null;
+      buf = null;
+    }
+  }
+
+}
@@ -0,0 +1,172 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ConvertingWriter.java - A writer that converts Chinese characters to
+ *   traditional or simplified form as they are written.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.io.*;
+
+/**
+ * A writer that converts the Chinese characters written to it to
+ * traditional or simplified form and writes them to another writer.
+ * <p>
+ * A character is converted once the {@link ChineseDictionary#CONTEXT_LENGTH
+ * CONTEXT_LENGTH} characters after it have been written, and only that
+ * many characters before it are kept.  So the memory used is constant no
+ * matter how long a line is, and the result is the same as converting the
+ * whole text at once in {@link ConversionMode#WINDOW WINDOW} mode.
+ * <p>
+ * Since the last few characters written may still change with the
+ * characters after them, {@link #flush() flush()} holds them back.  They
+ * are written when the writer is closed.
+ *
+ * @see ConvertingReader
+ */
+public class ConvertingWriter extends Writer {
+
+  /** Number of characters before and after a character needed to convert it. */
+  private static final int CONTEXT = ChineseDictionary.CONTEXT_LENGTH;
+
+  /** The writer to write to. */
+  private Writer out;
+
+  /** The dictionary for the conversion. */
+  private final ChineseDictionary dictionary;
+
+  /** If true, convert to traditional form, otherwise to simplified form. */
+  private final boolean traditional;
+
+  /** Characters written, with those already converted at the front kept as context. */
+  private char[] buf = new char[8192];
+
+  /** Converted characters to write. */
+  private char[] outBuf = new char[8192];
+
+  /** Index of the next character to convert. */
+  private int pos = 0;
+
+  /** End of the characters written. */
+  private int limit = 0;
+
+  /**
+   * Constructor using the dictionary of
+   * {@link ChineseHelper#getDictionary() ChineseHelper.getDictionary()}.
+   *
+   * @param out The writer to write to
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @throws Exception If the dictionary cannot be loaded.
+   */
+  public ConvertingWriter(Writer out, boolean traditional) throws Exception {
+    this(out, ChineseHelper.getDictionary(), traditional);
+  }
+
+  /**
+   * Constructor with the dictionary for the conversion.
+   *
+   * @param out The writer to write to
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   */
+  public ConvertingWriter(Writer out, ChineseDictionary dictionary, boolean traditional) {
+    super(out);
+    this.out = out;
+    this.dictionary = dictionary;
+    this.traditional = traditional;
+  }
+
+  /** Convert the characters up to the input end and write them out. */
+  private void convert(int end) throws IOException {
+    if (end <= pos) return;
+    int n = dictionary.convert(buf, 0, limit, pos, end, traditional, outBuf, 0);
+    out.write(outBuf, 0, n);
+    pos = end;
+  }
+
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    synchronized (lock) {
+      if (out == null) throw new IOException("ConvertingWriter.write: writer closed");
+      if (off < 0 || len < 0 || off + len > cbuf.length) throw new IndexOutOfBoundsException();
+
+      while (len > 0) {
+        if (limit == buf.length) compact();
+        int n = Math.min(len, buf.length - limit);
+        System.arraycopy(cbuf, off, buf, limit, n);
+        limit += n;
+        off += n;
+        len -= n;
+        convert(limit - CONTEXT);
+      }
+    }
+  }
+
+  public void write(String str, int off, int len) throws IOException {
+    synchronized (lock) {
+      if (out == null) throw new IOException("ConvertingWriter.write: writer closed");
+      if (off < 0 || len < 0 || off + len > str.length()) throw new IndexOutOfBoundsException();
+
+      while (len > 0) {  // copy through buf rather than the whole string
+        if (limit == buf.length) compact();
+        int n = Math.min(len, buf.length - limit);
+        str.getChars(off, off + n, buf, limit);
+        limit += n;
+        off += n;
+        len -= n;
+        convert(limit - CONTEXT);
+      }
+    }
+  }
+
+  /** Drop the characters in buf before the CONTEXT converted ones before pos. */
+  private void compact() {
+    int keep = Math.max(0, pos - CONTEXT);
+    System.arraycopy(buf, keep, buf, 0, limit - keep);
+    pos -= keep;
+    limit -= keep;
+  }
+
+  /** Flush the characters converted so far.  The last CONTEXT_LENGTH
+   *  characters written are not converted until more characters are
+   *  written or the writer is closed.
+   */
+  public void flush() throws IOException {
+    synchronized (lock) {
+      if (out == null) throw new IOException("ConvertingWriter.flush: writer closed");
+      out.flush();
+    }
+  }
+
+  /** Convert and write the remaining characters, then close the writer. */
+  public void close() throws IOException {
+    synchronized (lock) {
+      if (out == null) return;
+      try {
+        convert(limit);
+      } finally {
+        out.close();
+        out = null;
+        buf = null;
+        outBuf = null;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,389 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * DictionaryBuilder.java - Builds the mappings from characters and
+ *   vocabularies to CCharacter[].
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.*;
+
+/**
+ * Builds the mappings from characters and vocabularies to CCharacter[]
+ * in two phases.
+ * <p>
+ * In the first phase, {@link #add(CCharacter cchar) add()} appends the
+ * id (index) of the CCharacter to the postings of each of its characters
+ * and vocabularies.  The postings are linked lists kept in growable
+ * primitive buffers, so an append is constant time no matter how many
+ * CCharacters share a character or a vocabulary.
+ * <p>
+ * In the second phase, {@link #build() build()} adds the simplified and
+ * traditional forms of each vocabulary to the vocabulary postings, merging
+ * the postings of the forms in the buffers, and then freezes the postings
+ * once into exact-size CCharacter[].  The time to build is therefore
+ * linear in the size of the data.
+ */
+public class DictionaryBuilder {
+
+  /** The CCharacters in the order they are added.  The index is the id. */
+  private ArrayList<CCharacter> cChars = new ArrayList<CCharacter>();
+
+  /** Key for each character in charPostings, plus one.  Zero if none. */
+  private int[] charKeys = new int[Character.MAX_VALUE + 1];
+
+  /** The characters with postings, indexed by key. */
+  private char[] chars = new char[1024];
+
+  /** Postings of CCharacter ids for the characters. */
+  private Postings charPostings = new Postings();
+
+  /** Key for each vocabulary in vocabPostings. */
+  private HashMap<String, Integer> vocabKeys = new HashMap<String, Integer>();
+
+  /** Postings of CCharacter ids for the vocabularies. */
+  private Postings vocabPostings = new Postings();
+
+  /** The dictionary, available after build(). */
+  private ChineseDictionary dictionary;
+
+  /** Add the input CCharacter with its characters and vocabularies. */
+  public void add(CCharacter cchar) {
+    if (dictionary != null) throw new IllegalStateException("DictionaryBuilder.add: already built");
+    int id = cChars.size();
+    cChars.add(cchar);
+
+    // Add postings for each characters, skipping a repeated one
+    int clen = (cchar.variants == null) ? 2 : cchar.variants.length + 2;
+    char prev = 0;
+    for (int i = 0; i < clen; i++) {
+      char c = (i == 0) ? cchar.simpChar : (i == 1) ? cchar.tradChar : cchar.variants[i-2];
+      if (i > 0 && c == prev) continue;
+      prev = c;
+
+      charPostings.append(charKey(c), id);
+    }
+
+    // Add postings for the vocabs
+    for (Concept concept : cchar.getConcepts()) {
+      for (String v : concept.vocabs) {
+        vocabPostings.append(vocabKey(v), id);
+      }
+    }
+  }
+
+  /**
+   * Append the CCharacters and postings of the input builder, which must
+   * not be built yet, after those of this builder.  The result is the same
+   * as adding the CCharacters of the input builder one by one, so partial
+   * builders filled in parallel can be merged in order deterministically.
+   */
+  public void merge(DictionaryBuilder part) {
+    if (dictionary != null) throw new IllegalStateException("DictionaryBuilder.merge: already built");
+    int offset = cChars.size();
+    cChars.addAll(part.cChars);
+
+    for (int k = 0; k < part.charPostings.size(); k++) {
+      charPostings.appendAll(charKey(part.chars[k]), part.charPostings, k, offset);
+    }
+    for (Map.Entry<String, Integer> e : part.vocabKeys.entrySet()) {
+      vocabPostings.appendAll(vocabKey(e.getKey()), part.vocabPostings, e.getValue(), offset);
+    }
+  }
+
+  /** Returns the key of the input character in charPostings, creating it if needed. */
+  private int charKey(char c) {
+    int key = charKeys[c] - 1;
+    if (key < 0) {
+      key = charPostings.newKey();
+      charKeys[c] = key + 1;
+      if (key == chars.length) chars = Arrays.copyOf(chars, 2*key);
+      chars[key] = c;
+    }
+    return key;
+  }
+
+  /** Returns the key of the input vocabulary in vocabPostings, creating it if needed. */
+  private int vocabKey(String v) {
+    Integer key = vocabKeys.get(v);
+    if (key == null) {
+      key = vocabPostings.newKey();
+      vocabKeys.put(v, key);
+    }
+    return key;
+  }
+
+  /** Returns the number of CCharacters added. */
+  public int size() {
+    return cChars.size();
+  }
+
+  /** Freeze the postings into the mappings and return the dictionary.
+   *  No more CCharacter can be added afterward.
+   */
+  public ChineseDictionary build() {
+    if (dictionary != null) return dictionary;
+
+    final CCharacter[] all = cChars.toArray(new CCharacter[cChars.size()]);
+    CharTable charTable = new CharTable();
+    for (int key = 0; key < charPostings.size(); key++) {
+      charTable.put(chars[key], charPostings.toCChars(key, all));
+    }
+
+    // convert vocabs to simp and trad forms and merge their postings.
+    // The resolver sees the postings as they are merged.
+    ChineseDictionary resolver = new ChineseDictionary(charTable, new PostingsIndex(all));
+    String[] vocabs = vocabKeys.keySet().toArray(new String[vocabKeys.size()]);
+    Arrays.sort(vocabs);
+    int[] merged = new int[16];
+    int[] marks = new int[all.length];  // stamp of the merge that has each id
+    int stamp = 0;
+    for (String v : vocabs) {
+      CCharacter[] vcca = resolver.toCChars(v.toCharArray());
+      int key = vocabKeys.get(v);
+      int simpKey = vocabKey(toForm(v, vcca, false));
+      int tradKey = vocabKey(toForm(v, vcca, true));
+      if (simpKey == key && tradKey == key) continue;
+
+      // the ids of the vocab, then those of the forms not already in them
+      stamp++;
+      int n = vocabPostings.count(key);
+      if (merged.length < n) merged = new int[2*n];
+      vocabPostings.copyIds(key, merged, 0);
+      for (int i = 0; i < n; i++) marks[merged[i]] = stamp;
+      int own = n;
+      for (int formKey : new int[] {simpKey, tradKey}) {
+        if (formKey == key) continue;
+        if (merged.length < n + vocabPostings.count(formKey)) {
+          merged = Arrays.copyOf(merged, 2*(n + vocabPostings.count(formKey)));
+        }
+        for (int node = vocabPostings.head(formKey); node >= 0; node = vocabPostings.next(node)) {
+          int id = vocabPostings.id(node);
+          if (marks[id] != stamp) {
+            marks[id] = stamp;
+            merged[n++] = id;
+          }
+        }
+      }
+
+      // the forms get the merged ids; the vocab itself only if it is a form
+      for (int formKey : new int[] {simpKey, tradKey}) {
+        if (formKey == key) {
+          vocabPostings.appendAll(key, merged, own, n);  // only the new ids
+        } else {
+          vocabPostings.clear(formKey);
+          vocabPostings.appendAll(formKey, merged, 0, n);
+        }
+        if (simpKey == tradKey) break;
+      }
+    }
+
+    TreeMap<String, CCharacter[]> vocabMap = new TreeMap<String, CCharacter[]>();
+    for (Map.Entry<String, Integer> e : vocabKeys.entrySet()) {
+      vocabMap.put(e.getKey(), vocabPostings.toCChars(e.getValue(), all));
+    }
+
+    dictionary = new ChineseDictionary(cChars, charTable, new VocabTrie(vocabMap));
+    charKeys = null;
+    vocabKeys = null;
+    return dictionary;
+  }
+
+  /** Convert the input vocab to traditional or simplified form using its CCharacters. */
+  private static String toForm(String v, CCharacter[] vcca, boolean traditional) {
+    char[] result = v.toCharArray();
+    for (int i = 0; i < result.length; i++) {
+      CCharacter cc = vcca[i];
+      if (cc != null) result[i] = (traditional) ? cc.tradChar : cc.simpChar;
+    }
+    return new String(result);
+  }
+
+  /** A vocabulary index over the vocabulary postings, which may be
+   *  updated while in use.
+   */
+  private class PostingsIndex implements VocabIndex {
+
+    /** All CCharacters, indexed by id. */
+    private final CCharacter[] all;
+
+    /** Constructor with the CCharacters. */
+    PostingsIndex(CCharacter[] all) {
+      this.all = all;
+    }
+
+    public int size() {
+      return vocabKeys.size();
+    }
+
+    public boolean contains(char c) {
+      for (String v : vocabKeys.keySet()) {
+        if (v.indexOf(c) >= 0) return true;
+      }
+      return false;
+    }
+
+    public CCharacter[] get(char[] chars, int off, int len) {
+      return get(String.valueOf(chars, off, len));
+    }
+
+    public CCharacter[] getPacked(long key, int len) {
+      char[] chars = new char[len];
+      for (int i = len - 1; i >= 0; i--, key >>>= 16) chars[i] = (char) key;
+      return get(new String(chars));
+    }
+
+    /** Returns the CCharacters of the vocabulary, or null if it has none. */
+    private CCharacter[] get(String v) {
+      Integer key = vocabKeys.get(v);
+      if (key == null || vocabPostings.count(key) == 0) return null;
+      return vocabPostings.toCChars(key, all);
+    }
+
+    public int match(char[] chars, int off, int maxLen, int[] lengths) {
+      int m = 0;
+      for (int len = 1; len <= maxLen; len++) {
+        if (get(chars, off, len) != null) lengths[m++] = len;
+      }
+      return m;
+    }
+
+    public Iterable<Map.Entry<String, CCharacter[]>> entries() {
+      TreeMap<String, CCharacter[]> map = new TreeMap<String, CCharacter[]>();
+      for (String v : vocabKeys.keySet()) {
+        CCharacter[] cca = get(v);
+        if (cca != null) map.put(v, cca);
+      }
+      return map.entrySet();
+    }
+  }
+
+  /**
+   * Postings of ids for keys 0, 1, 2, ..., as linked lists in growable
+   * primitive buffers.
+   */
+  private static class Postings {
+
+    /** First node for each key. */
+    private int[] head = new int[1024];
+
+    /** Last node for each key. */
+    private int[] tail = new int[1024];
+
+    /** Number of ids for each key. */
+    private int[] count = new int[1024];
+
+    /** Number of keys. */
+    private int keys = 0;
+
+    /** Id of each node. */
+    private int[] ids = new int[4096];
+
+    /** Next node of each node, or -1 for the last one. */
+    private int[] next = new int[4096];
+
+    /** Number of nodes. */
+    private int nodes = 0;
+
+    /** Create a new key with no ids. */
+    int newKey() {
+      if (keys == head.length) {
+        head = Arrays.copyOf(head, 2*keys);
+        tail = Arrays.copyOf(tail, 2*keys);
+        count = Arrays.copyOf(count, 2*keys);
+      }
+      head[keys] = -1;
+      return keys++;
+    }
+
+    /** Returns the number of keys. */
+    int size() {
+      return keys;
+    }
+
+    /** Append the input id to the postings of the key. */
+    void append(int key, int id) {
+      if (nodes == ids.length) {
+        ids = Arrays.copyOf(ids, 2*nodes);
+        next = Arrays.copyOf(next, 2*nodes);
+      }
+      ids[nodes] = id;
+      next[nodes] = -1;
+      if (head[key] < 0) head[key] = nodes;
+      else next[tail[key]] = nodes;
+      tail[key] = nodes;
+      count[key]++;
+      nodes++;
+    }
+
+    /** Returns the number of ids of the key. */
+    int count(int key) {
+      return count[key];
+    }
+
+    /** Returns the first node of the key, or -1 if it has no ids. */
+    int head(int key) {
+      return head[key];
+    }
+
+    /** Returns the node after the node, or -1 if it is the last one. */
+    int next(int node) {
+      return next[node];
+    }
+
+    /** Returns the id of the node. */
+    int id(int node) {
+      return ids[node];
+    }
+
+    /** Remove all ids of the key.  Their nodes are left unused. */
+    void clear(int key) {
+      head[key] = -1;
+      count[key] = 0;
+    }
+
+    /** Copy the ids of the key into the array from the offset. */
+    void copyIds(int key, int[] to, int off) {
+      for (int node = head[key]; node >= 0; node = next[node]) to[off++] = ids[node];
+    }
+
+    /** Append the ids from[start, end) to the key. */
+    void appendAll(int key, int[] from, int start, int end) {
+      for (int i = start; i < end; i++) append(key, from[i]);
+    }
+
+    /** Append the ids of a key in another postings, plus the offset, to the key. */
+    void appendAll(int key, Postings from, int fromKey, int offset) {
+      for (int node = from.head[fromKey]; node >= 0; node = from.next[node]) {
+        append(key, from.ids[node] + offset);
+      }
+    }
+
+    /** Returns the CCharacters for the postings of the key. */
+    CCharacter[] toCChars(int key, CCharacter[] all) {
+      CCharacter[] cca = new CCharacter[count[key]];
+      int node = head[key];
+      for (int i = 0; i < cca.length; i++) {
+        cca[i] = all[ids[node]];
+        node = next[node];
+      }
+      return cca;
+    }
+  }
+
+}
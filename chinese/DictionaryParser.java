@@ -0,0 +1,319 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * DictionaryParser.java - A single-pass parser for the Chinese character
+ *   data in CSV format.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A single-pass parser for the Chinese character data in CSV format
+ * (see chinese.csv for the format).
+ * <p>
+ * Each line is scanned once over a char buffer.  The delimiters are
+ * recognized directly, without regular expressions, and the CCharacter,
+ * Pronunciation and Concepts are created from the buffer without
+ * intermediate String[] or String for the line.  The result is the same as
+ * splitting the line with {@link String#split(String) String.split()}, i.e.
+ * trailing empty fields are dropped.
+ * <ul>
+ * <li>Concept delimiters: , and &#65292;
+ * <li>Vocabulary delimiters: ; and &#65307; and &#12290;
+ * <li>Current traditional character: ~ and &#65374;
+ * </ul>
+ * <p>
+ * Large data (such as chinese.csv with a big custom vocabulary appended)
+ * can be parsed in parallel by {@link #parse(char[] chars, int start, int end,
+ * DictionaryBuilder builder) parse()}.
+ */
+public class DictionaryParser {
+
+  /** Initial size of the buffer for reading all the data. */
+  private static final int BUFFER_SIZE = 65536;
+
+  /** Default number of characters in a chunk parsed by a parallel task. */
+  private static final int CHUNK_SIZE = 131072;
+
+  /** The data being parsed. */
+  private final char[] buf;
+
+  /** Start of the unparsed data in buf. */
+  private int pos;
+
+  /** End of the data in buf. */
+  private final int limit;
+
+  /** Scratch buffer for a vocabulary with ~ replaced. */
+  private char[] scratch = new char[32];
+
+  /** Messages for the invalid lines to report later, or null to report them at once. */
+  private ArrayList<String> invalidLines;
+
+  /** Constructor for parsing the data in chars[start, end). */
+  public DictionaryParser(char[] chars, int start, int end) {
+    this.buf = chars;
+    this.pos = start;
+    this.limit = end;
+  }
+
+  /** Returns the next CCharacter, skipping empty, comment and invalid lines.
+   *  Returns null at the end of the data.
+   */
+  public CCharacter next() {
+    while (true) {
+      int eol = findLineEnd();
+      if (eol < 0) return null;
+
+      int start = pos;
+      int end = eol;
+      pos = (eol < limit) ? eol + 1 : eol;  // skip the '\n'
+      if (end > start && buf[end-1] == '\r') end--;
+
+      CCharacter cchar = parseLine(buf, start, end);
+      if (cchar != null) return cchar;
+    }
+  }
+
+  /** Find the end of the next line in buf.
+   *  Returns the index of '\n', or limit for the last line without '\n',
+   *  or -1 if there is no more data.
+   */
+  private int findLineEnd() {
+    for (int i = pos; i < limit; i++) {
+      if (buf[i] == '\n') return i;
+    }
+    return (pos < limit) ? limit : -1;
+  }
+
+  /**
+   * Parse the data in chars[start, end) and add the CCharacters to the
+   * builder in the order of the data lines.
+   * <p>
+   * If the data are larger than two chunks, they are split into chunks
+   * at line ends and parsed in parallel on the common ForkJoinPool, each
+   * into a partial builder.  The partial builders are then merged in order,
+   * and the invalid lines of each part are reported before it is merged,
+   * so the result and the messages are the same as parsing sequentially.
+   *
+   * @param chars The data in CSV format
+   * @param start The start of the data (inclusive)
+   * @param end The end of the data (exclusive)
+   * @param builder The builder to add the CCharacters to
+   */
+  public static void parse(char[] chars, int start, int end, DictionaryBuilder builder) {
+    parse(chars, start, end, builder, CHUNK_SIZE);
+  }
+
+  /**
+   * Parse the data in chars[start, end) as {@link #parse(char[] chars,
+   * int start, int end, DictionaryBuilder builder) parse()}, in chunks of
+   * the input size.  Data up to two chunks are parsed sequentially.
+   *
+   * @param chars The data in CSV format
+   * @param start The start of the data (inclusive)
+   * @param end The end of the data (exclusive)
+   * @param builder The builder to add the CCharacters to
+   * @param chunkSize Number of characters in a chunk parsed by a parallel task
+   */
+  public static void parse(char[] chars, int start, int end, DictionaryBuilder builder,
+    int chunkSize) {
+    if (chunkSize <= 0) throw new IllegalArgumentException(
+      "DictionaryParser.parse: non-positive chunk size " + chunkSize);
+    if (end - start <= 2*chunkSize) {
+      DictionaryParser parser = new DictionaryParser(chars, start, end);
+      CCharacter cchar;
+      while ((cchar = parser.next()) != null) builder.add(cchar);
+      return;
+    }
+
+    // split into chunks after a line end
+    int[] bounds = new int[(end - start) / chunkSize + 2];
+    int n = 0;
+    bounds[0] = start;
+    int i = start;
+    while (i < end) {
+      i = Math.min(i + chunkSize, end);
+      while (i < end && chars[i-1] != '\n') i++;
+      bounds[++n] = i;
+    }
+
+    DictionaryBuilder[] parts = new DictionaryBuilder[n];
+    String[][] invalidLines = new String[n][];
+    ForkJoinPool.commonPool().invoke(new ParseTask(chars, bounds, 0, n, parts, invalidLines));
+    for (int k = 0; k < n; k++) {
+      for (String message : invalidLines[k]) ChineseHelper.show(message);
+      builder.merge(parts[k]);
+    }
+  }
+
+  /** Read all the characters from the input stream in UTF-8 format. */
+  public static char[] readAll(InputStream in) throws IOException {
+    Reader reader = new InputStreamReader(in, "UTF-8");
+    char[] chars = new char[BUFFER_SIZE];
+    int n = 0, m;
+    while ((m = reader.read(chars, n, chars.length - n)) >= 0) {
+      n += m;
+      if (n == chars.length) chars = Arrays.copyOf(chars, 2*n);
+    }
+    return Arrays.copyOf(chars, n);
+  }
+
+  /**
+   * Parse a data line in buf[start, end) into a CCharacter.
+   *
+   * @param buf The buffer containing the line
+   * @param start The start of the line (inclusive)
+   * @param end The end of the line (exclusive), without line terminators
+   * @return The CCharacter with its pronunciation and concepts,
+   *   or null for an empty, comment or invalid line.
+   */
+  public CCharacter parseLine(char[] buf, int start, int end) {
+    if (start == end || buf[start] == '#') return null; // skip empty or comment line
+
+    // drop trailing empty fields
+    int last = end;
+    while (last > start && isConceptDelimiter(buf[last-1])) last--;
+
+    int f = fieldEnd(buf, start, last);
+    int clen = f - start;
+    if (clen < 2) {
+      String message = "ChineseHelper.load: invalid line '" + new String(buf, start, end-start) + "'";
+      if (invalidLines == null) ChineseHelper.show(message);
+      else invalidLines.add(message);
+      return null;
+    }
+
+    CCharacter cchar = new CCharacter(buf[start+1], buf[start]);
+    if (clen > 2) { // Has variant characters
+      cchar.variants = Arrays.copyOfRange(buf, start+2, f);
+    }
+    if (f == last) return cchar;
+
+    int s = f + 1;
+    f = fieldEnd(buf, s, last);
+    cchar.pronounce = new Pronunciation(new String(buf, s, f-s));
+
+    while (f < last) { // Has concepts
+      s = f + 1;
+      f = fieldEnd(buf, s, last);
+      cchar.addConcept(parseConcept(buf, s, f, cchar.tradChar));
+    }
+    return cchar;
+  }
+
+  /** Parse the vocabularies of a concept in buf[start, end),
+   *  replacing ~ with the input traditional character.
+   */
+  private Concept parseConcept(char[] buf, int start, int end, char tradChar) {
+    // drop trailing empty vocabularies, unless there is no delimiter at all
+    int last = end;
+    while (last > start && isVocabDelimiter(buf[last-1])) last--;
+
+    int n = 1;
+    for (int i = start; i < last; i++) {
+      if (isVocabDelimiter(buf[i])) n++;
+    }
+    if (last == start && end > start) n = 0;  // only delimiters
+
+    String[] vocabs = new String[n];
+    int s = start;
+    for (int k = 0; k < n; k++) {
+      int e = s;
+      while (e < last && !isVocabDelimiter(buf[e])) e++;
+      vocabs[k] = toVocab(buf, s, e, tradChar);
+      s = e + 1;
+    }
+    return new Concept(vocabs);
+  }
+
+  /** Create the vocabulary in buf[start, end), replacing ~ with the input character. */
+  private String toVocab(char[] buf, int start, int end, char tradChar) {
+    int n = end - start;
+    if (n > scratch.length) scratch = new char[Math.max(n, 2*scratch.length)];
+    for (int i = 0; i < n; i++) {
+      char c = buf[start+i];
+      scratch[i] = (c == '~' || c == '\uff5e') ? tradChar : c;
+    }
+    return new String(scratch, 0, n);
+  }
+
+  /** Returns the end of the field starting at start. */
+  private static int fieldEnd(char[] buf, int start, int end) {
+    int i = start;
+    while (i < end && !isConceptDelimiter(buf[i])) i++;
+    return i;
+  }
+
+  /**
+   * Task for parsing chunks [lo, hi) into partial builders, keeping the
+   * messages for their invalid lines.
+   */
+  private static class ParseTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final char[] chars;
+    private final int[] bounds;
+    private final int lo, hi;
+    private final DictionaryBuilder[] parts;
+    private final String[][] invalidLines;
+
+    ParseTask(char[] chars, int[] bounds, int lo, int hi, DictionaryBuilder[] parts,
+      String[][] invalidLines) {
+      this.chars = chars;
+      this.bounds = bounds;
+      this.lo = lo;
+      this.hi = hi;
+      this.parts = parts;
+      this.invalidLines = invalidLines;
+    }
+
+    protected void compute() {
+      if (hi - lo > 1) {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new ParseTask(chars, bounds, lo, mid, parts, invalidLines),
+          new ParseTask(chars, bounds, mid, hi, parts, invalidLines));
+        return;
+      }
+
+      DictionaryBuilder part = new DictionaryBuilder();
+      DictionaryParser parser = new DictionaryParser(chars, bounds[lo], bounds[lo+1]);
+      parser.invalidLines = new ArrayList<String>();
+      CCharacter cchar;
+      while ((cchar = parser.next()) != null) part.add(cchar);
+      parts[lo] = part;
+      invalidLines[lo] = parser.invalidLines.toArray(new String[parser.invalidLines.size()]);
+    }
+  }
+
+  /** Determine whether the input character separates concepts. */
+  public static boolean isConceptDelimiter(char c) {
+    return c == ',' || c == '\uff0c';
+  }
+
+  /** Determine whether the input character separates vocabularies in a concept. */
+  public static boolean isVocabDelimiter(char c) {
+    return c == ';' || c == '\uff1b' || c == '\u3002';
+  }
+
+}
@@ -0,0 +1,342 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * DictionarySnapshot.java - A compiled binary snapshot of the Chinese
+ *   character data.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A compiled binary snapshot of a {@link ChineseDictionary}.
+ * <p>
+ * The snapshot holds the CCharacters with their pronunciations and
+ * concepts, the table from character to CCharacter[], the vocabularies
+ * expanded to both simplified and traditional forms with their
+ * CCharacter[], and the frozen tables derived from them: the ranks in
+ * pinyin order, the {@link FormTable}s, and the states of the
+ * {@link VocabTrie} with its {@link PackedVocabTable}.  Reading it back
+ * therefore needs no CSV parsing, no second pass over the vocabularies,
+ * and no rebuilding of the tables.
+ * <p>
+ * The file is read through a read-only memory map.  The frozen tables,
+ * which are arrays of primitives, are used as views over the mapped file
+ * without copying, so the JVMs on the same host reading the same snapshot
+ * share those pages in the page cache.  The CCharacters, the strings, and
+ * the CCharacter[] of the character table and the vocabularies are objects,
+ * and are still created on the heap of each JVM that reads the snapshot.
+ * <p>
+ * The file format is big-endian, except that the arrays of the frozen
+ * tables are little-endian, the byte order of most hosts, so that their
+ * views need no swapping of bytes.  A CCharacter is referred to
+ * by its index (id) in the CCharacter section, and a string by its index
+ * in the string section.  The vocabularies are in ascending order.  Each
+ * array of a frozen table starts at a multiple of 8 bytes from the start
+ * of the file, after zero bytes of padding ("pad").
+ * <pre>
+ *   int magic, int version
+ *   int n, n * (int length, char[length])                     strings
+ *   int n, n * (char simp, char trad, int nv, char[nv],       CCharacters
+ *               int pinyin (-1 if none),
+ *               int nc, nc * (int nv, int[nv] vocabs))
+ *   int n, n * (char c, int m, int[m] ids)                    char table
+ *   int n, n * (int vocab, int m, int[m] ids)                 vocabularies
+ *   int[number of CCharacters]                                pinyin ranks
+ *   2 * (int count, pad, char[65536], pad, long[1024])        traditional
+ *                                                             and simplified forms
+ *   int n, pad, char[65536] codes,                            vocab trie
+ *               pad, int[n] base, pad, int[n] check,
+ *               pad, int[n] value
+ *   int n, int size, pad, long[n] keys, pad, int[n] indexes,  short vocabularies
+ *               pad, byte[n] lengths
+ * </pre>
+ */
+public class DictionarySnapshot {
+
+  /** Magic number at the start of a snapshot file ("CCHD"). */
+  public static final int MAGIC = 0x43434844;
+
+  /** Version of the snapshot file format. */
+  public static final int VERSION = 2;
+
+  /**
+   * Write a snapshot of the input dictionary to the specified file.
+   *
+   * @param dictionary The dictionary
+   * @param file The snapshot file
+   * @throws IOException If an error occurred when writing to the file.
+   */
+  public static void write(ChineseDictionary dictionary, File file) throws IOException {
+    List<CCharacter> cChars = dictionary.getCChars();
+    CharTable charToCChar = dictionary.getCharTable();
+    VocabTrie vocabToCChar = (VocabTrie) dictionary.getVocabIndex();
+
+    IdentityHashMap<CCharacter, Integer> ids = new IdentityHashMap<CCharacter, Integer>();
+    for (CCharacter cc : cChars) ids.put(cc, ids.size());
+
+    // collect the strings into a table so each is written once
+    LinkedHashMap<String, Integer> strings = new LinkedHashMap<String, Integer>();
+    for (CCharacter cc : cChars) {
+      if (cc.pronounce != null) intern(strings, cc.pronounce.pinyin);
+      for (Concept concept : cc.getConcepts()) {
+        for (String v : concept.vocabs) intern(strings, v);
+      }
+    }
+    for (Map.Entry<String, CCharacter[]> e : vocabToCChar.entries()) intern(strings, e.getKey());
+
+    DataOutputStream out = new DataOutputStream(
+      new BufferedOutputStream(new FileOutputStream(file), 65536));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+
+      out.writeInt(strings.size());
+      for (String s : strings.keySet()) {
+        out.writeInt(s.length());
+        out.writeChars(s);
+      }
+
+      out.writeInt(cChars.size());
+      for (CCharacter cc : cChars) {
+        out.writeChar(cc.simpChar);
+        out.writeChar(cc.tradChar);
+        int nv = (cc.variants == null) ? 0 : cc.variants.length;
+        out.writeInt(nv);
+        for (int i = 0; i < nv; i++) out.writeChar(cc.variants[i]);
+        out.writeInt((cc.pronounce == null) ? -1 : strings.get(cc.pronounce.pinyin));
+        List<Concept> concepts = cc.getConcepts();
+        out.writeInt(concepts.size());
+        for (Concept concept : concepts) {
+          out.writeInt(concept.vocabs.length);
+          for (String v : concept.vocabs) out.writeInt(strings.get(v));
+        }
+      }
+
+      int n = 0;
+      for (int c = 0; c <= Character.MAX_VALUE; c++) {
+        if (charToCChar.get((char) c) != null) n++;
+      }
+      out.writeInt(n);
+      for (int c = 0; c <= Character.MAX_VALUE; c++) {
+        CCharacter[] cca = charToCChar.get((char) c);
+        if (cca == null) continue;
+        out.writeChar(c);
+        writeIds(out, cca, ids);
+      }
+
+      out.writeInt(vocabToCChar.size());
+      for (Map.Entry<String, CCharacter[]> e : vocabToCChar.entries()) {
+        out.writeInt(strings.get(e.getKey()));
+        writeIds(out, e.getValue(), ids);
+      }
+
+      for (CCharacter cc : cChars) out.writeInt(dictionary.getPinyinRank(cc));
+
+      for (boolean traditional : new boolean[] {true, false}) {
+        FormTable forms = dictionary.getFormTable(traditional);
+        out.writeInt(forms.getAmbiguousCount());
+        pad(out);
+        writeTable(out, forms.getForms());
+        pad(out);
+        writeTable(out, forms.getAmbiguous());
+      }
+
+      IntBuffer base = vocabToCChar.getBase();
+      IntBuffer check = vocabToCChar.getCheck();
+      IntBuffer value = vocabToCChar.getValue();
+      out.writeInt(check.capacity());
+      pad(out);
+      writeTable(out, vocabToCChar.getCodes());
+      for (IntBuffer ib : new IntBuffer[] {base, check, value}) {
+        pad(out);
+        writeTable(out, ib);
+      }
+
+      PackedVocabTable shortVocabs = vocabToCChar.getShortVocabs();
+      LongBuffer keys = shortVocabs.getKeys();
+      IntBuffer indexes = shortVocabs.getIndexes();
+      ByteBuffer lengths = shortVocabs.getLengths();
+      out.writeInt(keys.capacity());
+      out.writeInt(shortVocabs.size());
+      pad(out);
+      writeTable(out, keys);
+      pad(out);
+      writeTable(out, indexes);
+      pad(out);
+      for (int i = 0; i < keys.capacity(); i++) out.writeByte(lengths.get(i));
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Read a dictionary from the specified snapshot file by memory-mapping it.
+   * The frozen tables of the dictionary are views over the mapped file.
+   *
+   * @param file The snapshot file
+   * @return The dictionary read from the file.
+   * @throws Exception If an error occurred when reading the file, or the
+   *   file is not a snapshot of the supported version.
+   */
+  public static ChineseDictionary read(File file) throws Exception {
+    MappedByteBuffer buf;
+    FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      buf = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+    } finally {
+      fc.close();  // the mapping stays valid after the channel is closed
+    }
+
+    if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+      throw new Exception("DictionarySnapshot.read: not a snapshot file '" + file + "'");
+    }
+    int version = buf.getInt();
+    if (version != VERSION) {
+      throw new Exception("DictionarySnapshot.read: unsupported version " + version
+        + " in '" + file + "'");
+    }
+
+    String[] strings = new String[buf.getInt()];
+    for (int i = 0; i < strings.length; i++) {
+      char[] chars = new char[buf.getInt()];
+      buf.asCharBuffer().get(chars);
+      buf.position(buf.position() + 2 * chars.length);
+      strings[i] = new String(chars);
+    }
+
+    CCharacter[] cca = new CCharacter[buf.getInt()];
+    for (int i = 0; i < cca.length; i++) {
+      char simp = buf.getChar();
+      CCharacter cc = new CCharacter(buf.getChar(), simp);
+      int nv = buf.getInt();
+      if (nv > 0) {
+        cc.variants = new char[nv];
+        for (int j = 0; j < nv; j++) cc.variants[j] = buf.getChar();
+      }
+      int pinyin = buf.getInt();
+      if (pinyin >= 0) cc.pronounce = new Pronunciation(strings[pinyin]);
+      int nc = buf.getInt();
+      for (int j = 0; j < nc; j++) {
+        String[] vocabs = new String[buf.getInt()];
+        for (int k = 0; k < vocabs.length; k++) vocabs[k] = strings[buf.getInt()];
+        cc.addConcept(new Concept(vocabs));
+      }
+      cca[i] = cc;
+    }
+
+    CharTable charToCChar = new CharTable();
+    int n = buf.getInt();
+    for (int i = 0; i < n; i++) {
+      char c = buf.getChar();
+      charToCChar.put(c, readIds(buf, cca));
+    }
+
+    n = buf.getInt();
+    String[] vocabs = new String[n];
+    CCharacter[][] vocabCChars = new CCharacter[n][];
+    for (int i = 0; i < n; i++) {
+      vocabs[i] = strings[buf.getInt()];
+      vocabCChars[i] = readIds(buf, cca);
+    }
+
+    int[] ranks = new int[cca.length];
+    buf.asIntBuffer().get(ranks);
+    buf.position(buf.position() + 4 * ranks.length);
+
+    FormTable[] forms = new FormTable[2];
+    for (int i = 0; i < 2; i++) {
+      int ambiguousCount = buf.getInt();
+      CharBuffer chars = slice(buf, 2 * FormTable.SIZE).asCharBuffer();
+      LongBuffer ambiguous = slice(buf, 8 * (FormTable.SIZE >>> 6)).asLongBuffer();
+      forms[i] = new FormTable(chars, ambiguous, ambiguousCount);
+    }
+
+    n = buf.getInt();
+    CharBuffer codes = slice(buf, 2 * (Character.MAX_VALUE + 1)).asCharBuffer();
+    IntBuffer base = slice(buf, 4 * n).asIntBuffer();
+    IntBuffer check = slice(buf, 4 * n).asIntBuffer();
+    IntBuffer value = slice(buf, 4 * n).asIntBuffer();
+
+    n = buf.getInt();
+    int size = buf.getInt();
+    LongBuffer keys = slice(buf, 8 * n).asLongBuffer();
+    IntBuffer indexes = slice(buf, 4 * n).asIntBuffer();
+    ByteBuffer lengths = slice(buf, n);
+    PackedVocabTable shortVocabs = new PackedVocabTable(keys, lengths, indexes, vocabCChars, size);
+
+    VocabTrie vocabToCChar = new VocabTrie(vocabs, vocabCChars, codes, base, check, value,
+      shortVocabs);
+    return new ChineseDictionary(cca, charToCChar, vocabToCChar, forms[0], forms[1], ranks);
+  }
+
+  /** Write zero bytes up to the next multiple of 8 bytes. */
+  private static void pad(DataOutputStream out) throws IOException {
+    while (out.size() % 8 != 0) out.writeByte(0);
+  }
+
+  /** Write the chars of the table in little-endian order. */
+  private static void writeTable(DataOutputStream out, CharBuffer table) throws IOException {
+    for (int i = 0; i < table.capacity(); i++) out.writeChar(Character.reverseBytes(table.get(i)));
+  }
+
+  /** Write the ints of the table in little-endian order. */
+  private static void writeTable(DataOutputStream out, IntBuffer table) throws IOException {
+    for (int i = 0; i < table.capacity(); i++) out.writeInt(Integer.reverseBytes(table.get(i)));
+  }
+
+  /** Write the longs of the table in little-endian order. */
+  private static void writeTable(DataOutputStream out, LongBuffer table) throws IOException {
+    for (int i = 0; i < table.capacity(); i++) out.writeLong(Long.reverseBytes(table.get(i)));
+  }
+
+  /** Skip to the next multiple of 8 bytes, and return a view of the next
+   *  len bytes, which are skipped as well.
+   */
+  private static ByteBuffer slice(ByteBuffer buf, int len) {
+    if ((buf.position() & 7) != 0) buf.position((buf.position() + 7) & ~7);
+    ByteBuffer view = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+    view.limit(len);
+    buf.position(buf.position() + len);
+    return view;
+  }
+
+  /** Add the input string to the string table if not already there. */
+  private static void intern(Map<String, Integer> strings, String s) {
+    if (!strings.containsKey(s)) strings.put(s, strings.size());
+  }
+
+  /** Write the ids of the input CCharacters. */
+  private static void writeIds(DataOutputStream out, CCharacter[] cca,
+    IdentityHashMap<CCharacter, Integer> ids) throws IOException {
+    out.writeInt(cca.length);
+    for (CCharacter cc : cca) out.writeInt(ids.get(cc));
+  }
+
+  /** Read ids and return the CCharacters they refer to. */
+  private static CCharacter[] readIds(ByteBuffer buf, CCharacter[] cca) {
+    CCharacter[] result = new CCharacter[buf.getInt()];
+    for (int i = 0; i < result.length; i++) result[i] = cca[buf.getInt()];
+    return result;
+  }
+
+}
@@ -0,0 +1,250 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * FileConverter.java - Converts a text file to traditional or simplified
+ *   form in parallel chunks.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Converts a text file in UTF-8 format to traditional or simplified form
+ * in parallel chunks.
+ * <p>
+ * The input file is memory-mapped a window at a time.  Each window is
+ * split into chunks after a line feed, and the chunks are converted on the
+ * common ForkJoinPool.  Each converted chunk is written to the output file
+ * with positional writes as soon as it and the chunks before it are done,
+ * while the chunks of the next window are being converted, so at most two
+ * windows are held at a time.  Since no vocabulary spans a line break, the
+ * conversion of a line never depends on another chunk.
+ * <p>
+ * The output is the same as that of
+ * {@link ChineseHelper#convert(String inFile, String outFile, boolean traditional)
+ * ChineseHelper.convert()}: a line ends at a line feed, a carriage return
+ * before it is dropped, and each line is written with CR LF after it.
+ */
+public class FileConverter {
+
+  /** Default number of bytes in a chunk converted by a parallel task. */
+  private static final int CHUNK_SIZE = 8 << 20;
+
+  /** Maximum number of bytes mapped at a time. */
+  private static final int MAX_WINDOW = Integer.MAX_VALUE - 8;
+
+  /**
+   * Convert the input file to the specified form using the specified mode
+   * and write the data to the output file.
+   *
+   * @param inFile The input file in UTF-8 format
+   * @param outFile The output file in UTF-8 format
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @throws IOException If an error occurred when reading or writing the files,
+   *   or a line is too long to be mapped.
+   */
+  public static void convert(File inFile, File outFile, ChineseDictionary dictionary,
+    boolean traditional, ConversionMode mode) throws IOException {
+    convert(inFile, outFile, dictionary, traditional, mode, CHUNK_SIZE);
+  }
+
+  /**
+   * Convert the input file as {@link #convert(File inFile, File outFile,
+   * ChineseDictionary dictionary, boolean traditional, ConversionMode mode)
+   * convert()}, in chunks of the input size.
+   *
+   * @param inFile The input file in UTF-8 format
+   * @param outFile The output file in UTF-8 format
+   * @param dictionary The dictionary for the conversion
+   * @param traditional If true, convert to traditional form, otherwise convert to
+   *  simplified form.
+   * @param mode How the vocabularies are used to resolve ambiguous characters
+   * @param chunkSize Number of bytes in a chunk converted by a parallel task
+   * @throws IOException If an error occurred when reading or writing the files,
+   *   or a line is too long to be mapped.
+   */
+  public static void convert(File inFile, File outFile, ChineseDictionary dictionary,
+    boolean traditional, ConversionMode mode, int chunkSize) throws IOException {
+    if (chunkSize <= 0) throw new IllegalArgumentException(
+      "FileConverter.convert: non-positive chunk size " + chunkSize);
+    ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<Future<ByteBuffer>>();
+    FileChannel in = FileChannel.open(inFile.toPath(), StandardOpenOption.READ);
+    FileChannel out = null;
+    try {
+      out = FileChannel.open(outFile.toPath(), StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+
+      long size = in.size();
+      int tasks = 4 * ForkJoinPool.getCommonPoolParallelism();
+      long window = Math.min((long) chunkSize * tasks, MAX_WINDOW);
+      long pos = 0;
+      long outPos = 0;
+      while (pos < size) {
+        long len = Math.min(window, size - pos);
+        MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, pos, len);
+
+        // end the window after its last line feed, unless at the end of file
+        int end = (int) len;
+        if (pos + len < size) {
+          while (end > 0 && map.get(end-1) != '\n') end--;
+          if (end == 0) {  // a line longer than the window
+            if (window == MAX_WINDOW) {
+              throw new IOException("FileConverter.convert: line too long at byte " + pos);
+            }
+            window = Math.min(2*window, MAX_WINDOW);
+            continue;
+          }
+        }
+
+        // split into chunks after a line feed, and write the previous window
+        // while they are converted
+        int previous = pending.size();
+        int i = 0;
+        while (i < end) {
+          int s = i;
+          i = (int) Math.min((long) i + chunkSize, end);
+          while (i < end && map.get(i-1) != '\n') i++;
+          pending.add(ForkJoinPool.commonPool().submit(
+            new ChunkTask(map, s, i, dictionary, traditional, mode)));
+        }
+        outPos = write(pending, previous, out, outPos);
+        pos += end;
+      }
+      write(pending, pending.size(), out, outPos);
+
+    } finally {
+      for (Future<ByteBuffer> result : pending) result.cancel(false);
+      in.close();
+      if (out != null) out.close();
+    }
+  }
+
+  /**
+   * Write the first n pending chunks in order, each as soon as it is done.
+   *
+   * @return The end of the output written.
+   */
+  private static long write(ArrayDeque<Future<ByteBuffer>> pending, int n, FileChannel out,
+    long outPos) throws IOException {
+    for (int i = 0; i < n; i++) {
+      ByteBuffer bytes = get(pending.peek());
+      pending.poll();
+      while (bytes.hasRemaining()) outPos += out.write(bytes, outPos);
+    }
+    return outPos;
+  }
+
+  /** Returns the result of a chunk, rethrowing its exception. */
+  private static ByteBuffer get(Future<ByteBuffer> result) throws IOException {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("FileConverter.convert: interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      throw new IOException("FileConverter.convert: " + cause, cause);
+    }
+  }
+
+  /**
+   * Convert the lines in chars[start, end) and append them with CR LF after
+   * each to the output array.
+   *
+   * @return The end of the output in the output array.
+   */
+  static int convertLines(char[] chars, int start, int end, ChineseDictionary dictionary,
+    boolean traditional, ConversionMode mode, char[] out, int outOff) {
+    int o = outOff;
+    int s = start;
+    while (s < end) {
+      int e = s;
+      while (e < end && chars[e] != '\n') e++;
+      int next = (e < end) ? e + 1 : e;
+      if (e > s && chars[e-1] == '\r') e--;
+
+      if (mode == ConversionMode.WINDOW) {  // convert the line without copying it
+        o = dictionary.convert(chars, s, e, traditional, out, o);
+      } else {
+        String line = dictionary.convert(Arrays.copyOfRange(chars, s, e), traditional, mode);
+        line.getChars(0, line.length(), out, o);
+        o += line.length();
+      }
+      out[o++] = '\r';
+      out[o++] = '\n';
+      s = next;
+    }
+    return o;
+  }
+
+  /** A task converting a chunk of the mapped input to UTF-8 bytes. */
+  private static class ChunkTask implements Callable<ByteBuffer> {
+    private final ByteBuffer map;
+    private final int start, end;
+    private final ChineseDictionary dictionary;
+    private final boolean traditional;
+    private final ConversionMode mode;
+
+    ChunkTask(ByteBuffer map, int start, int end, ChineseDictionary dictionary,
+      boolean traditional, ConversionMode mode) {
+      this.map = map;
+      this.start = start;
+      this.end = end;
+      this.dictionary = dictionary;
+      this.traditional = traditional;
+      this.mode = mode;
+    }
+
+    public ByteBuffer call() throws IOException {
+      ByteBuffer bytes = map.duplicate();
+      bytes.limit(end).position(start);
+      CharBuffer decoded = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+        .decode(bytes);
+      char[] chars = new char[decoded.remaining()];
+      decoded.get(chars);
+
+      int lines = 1;
+      for (char c : chars) {
+        if (c == '\n') lines++;
+      }
+      char[] out = new char[chars.length + 2*lines];
+      int n = convertLines(chars, 0, chars.length, dictionary, traditional, mode, out, 0);
+
+      return StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+        .encode(CharBuffer.wrap(out, 0, n));
+    }
+  }
+
+}
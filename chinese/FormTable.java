@@ -0,0 +1,131 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * FormTable.java - A flat table from a character to its traditional or
+ *   simplified form, with a bitset of the characters needing context.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.nio.CharBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A flat table from a character (UTF-16 code unit) to its traditional or
+ * simplified form, derived from a {@link CharTable}.
+ * <p>
+ * Most characters convert to the same character whichever of their
+ * CCharacters is picked, so their form is looked up with one array read.
+ * A character whose CCharacters disagree on the form is flagged as
+ * ambiguous, and must be resolved with its vocabulary context.  A
+ * character without mapping converts to itself.
+ * <p>
+ * The tables are kept in buffers, which wrap arrays when the table is
+ * derived, or are views over the file when it is read from a
+ * {@link DictionarySnapshot}.
+ */
+final class FormTable {
+
+  /** Number of characters in the table. */
+  static final int SIZE = Character.MAX_VALUE + 1;
+
+  /** The form of each character. */
+  private final CharBuffer forms;
+
+  /** Bitset of the characters whose form depends on the context. */
+  private final LongBuffer ambiguous;
+
+  /** Number of ambiguous characters. */
+  private final int ambiguousCount;
+
+  /**
+   * Constructor.
+   *
+   * @param charToCChar Table from character to CCharacter[]
+   * @param traditional If true, the table is for the traditional form,
+   *  otherwise for the simplified form.
+   */
+  FormTable(CharTable charToCChar, boolean traditional) {
+    char[] forms = new char[SIZE];
+    long[] ambiguous = new long[SIZE >>> 6];
+    int count = 0;
+    for (int i = 0; i <= Character.MAX_VALUE; i++) {
+      char c = (char) i;
+      forms[i] = c;
+      CCharacter[] cca = charToCChar.get(c);
+      if (cca == null || cca.length == 0) continue;  // no mapping
+
+      char f = (traditional) ? cca[0].tradChar : cca[0].simpChar;
+      forms[i] = f;
+      for (int k = 1; k < cca.length; k++) {
+	if (((traditional) ? cca[k].tradChar : cca[k].simpChar) != f) {
+	  ambiguous[i >>> 6] |= 1L << i;
+	  count++;
+	  break;
+	}
+      }
+    }
+    this.forms = CharBuffer.wrap(forms);
+    this.ambiguous = LongBuffer.wrap(ambiguous);
+    this.ambiguousCount = count;
+  }
+
+  /**
+   * Constructor with the tables as written by {@link #getForms() getForms()}
+   * and {@link #getAmbiguous() getAmbiguous()}, which must not be modified.
+   *
+   * @param forms The form of each of the SIZE characters
+   * @param ambiguous Bitset of the ambiguous characters, SIZE/64 longs
+   * @param ambiguousCount Number of ambiguous characters
+   */
+  FormTable(CharBuffer forms, LongBuffer ambiguous, int ambiguousCount) {
+    this.forms = forms;
+    this.ambiguous = ambiguous;
+    this.ambiguousCount = ambiguousCount;
+  }
+
+  /** Returns true if the form of the character depends on the context. */
+  boolean isAmbiguous(char c) {
+    return (ambiguous.get(c >>> 6) & (1L << c)) != 0;
+  }
+
+  /** Returns the form of a character that is not ambiguous. */
+  char get(char c) {
+    return forms.get(c);
+  }
+
+  /** Returns true if the character is ambiguous or not in its form. */
+  boolean mayChange(char c) {
+    return forms.get(c) != c || isAmbiguous(c);
+  }
+
+  /** Returns the form of each character, for writing a snapshot. */
+  CharBuffer getForms() {
+    return forms.duplicate();
+  }
+
+  /** Returns the bitset of the ambiguous characters, for writing a snapshot. */
+  LongBuffer getAmbiguous() {
+    return ambiguous.duplicate();
+  }
+
+  /** Returns the number of ambiguous characters. */
+  int getAmbiguousCount() {
+    return ambiguousCount;
+  }
+
+}
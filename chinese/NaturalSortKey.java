@@ -0,0 +1,350 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * NaturalSortKey.java - A string mapped once for comparing in the same
+ *   order as ChineseHelper.compareNatural().
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.*;
+
+import util.StringHelper;
+import util.StringHelper.Comparison;
+
+/**
+ * A string mapped once with a dictionary, for comparing in the same order
+ * as {@link ChineseHelper#compareNatural(char[] ca1, char[] ca2, Comparison option)
+ * ChineseHelper.compareNatural()} with the same option.
+ * <p>
+ * The key holds the string after
+ * {@link ChineseHelper#toDecimal(char[] chars) toDecimal()}, with each
+ * character classified once as a space, a digit with its value, or
+ * another character with its folded form: the simplified form of its
+ * CCharacter, or for PINYIN_FOLD_FORM its weight in pinyin order, or its
+ * upper case if it has none.  Comparing two keys walks
+ * them in lockstep as compareNatural() does, collapsing spaces and
+ * leading zeros and comparing digit runs as numbers, but with no
+ * allocation and no dictionary lookup.  So sorting n strings maps each
+ * string once instead of O(log n) times, e.g. for a listing of
+ * "&#31532;&#20061;&#21313;&#19968;&#31456;" and "&#31532;&#20061;&#31456;".
+ * <p>
+ * Keys are only comparable with keys of the same option created with the
+ * same dictionary.  The order is not consistent with equals(), which is
+ * that of Object.  {@link #toByteArray() toByteArray()} encodes the key
+ * for stores that compare raw bytes.
+ */
+public final class NaturalSortKey implements Comparable<NaturalSortKey> {
+
+  /** Class of a space character. */
+  static final int SPACE = -2;
+
+  /** Class of a character that is neither a space nor a digit. */
+  static final int OTHER = -1;
+
+  /** The source string. */
+  private final String source;
+
+  /** The comparison option. */
+  private final Comparison option;
+
+  /** True if the source string contains a CJK character. */
+  private final boolean cjk;
+
+  /** The characters after toDecimal(). */
+  private final char[] chars;
+
+  /** The class of each character: SPACE, OTHER, or the value of a digit
+   *  as ChineseHelper.toInt() returns, which is above 9 for a digit other
+   *  than 0-9 and the Chinese ones.
+   */
+  private final int[] classes;
+
+  /** The folded form of each character, or the pinyin weight of a
+   *  Chinese character for PINYIN_FOLD_FORM.
+   */
+  private final int[] folded;
+
+  /** Bitset of the characters that map to a CCharacter. */
+  private final long[] mapped;
+
+  /**
+   * Constructor.
+   *
+   * @param dictionary The dictionary for mapping the characters
+   * @param source The string
+   * @param option One of the option for comparison.
+   *   See {@link util.StringHelper.Comparison StringHelper.Comparison}.
+   */
+  public NaturalSortKey(ChineseDictionary dictionary, String source, Comparison option) {
+    this.source = source;
+    this.option = option;
+    this.cjk = ChineseHelper.containsUnicodeCJK(source);
+    this.chars = ChineseHelper.toDecimal(source.toCharArray());
+    int n = chars.length;
+
+    classes = new int[n];
+    for (int i = 0; i < n; i++) {
+      char c = chars[i];
+      classes[i] = (Character.isSpaceChar(c)) ? SPACE
+        : (ChineseHelper.isDigit(c)) ? ChineseHelper.toInt(c) : OTHER;
+    }
+
+    boolean pinyin = option == Comparison.PINYIN_FOLD_FORM;
+    folded = new int[n];
+    mapped = new long[(n + 63) >>> 6];
+    CCharacter[] cca = (option == Comparison.LEXICAL) ? null : dictionary.toCChars(chars);
+    for (int i = 0; i < n; i++) {
+      if (cca != null && cca[i] != null) {
+	folded[i] = (pinyin) ? dictionary.getPinyinWeight(cca[i]) : cca[i].simpChar;
+	mapped[i >>> 6] |= 1L << i;
+      } else {
+	folded[i] = Character.toUpperCase(Character.toLowerCase(chars[i]));
+      }
+    }
+  }
+
+  /** Returns the source string. */
+  public String getSourceString() {
+    return source;
+  }
+
+  /** Returns the comparison option. */
+  public Comparison getOption() {
+    return option;
+  }
+
+  /** Returns the sort key as bytes.  See {@link SortKeyEncoder}. */
+  public byte[] toByteArray() {
+    return SortKeyEncoder.encode(this);
+  }
+
+  /** Returns the characters after toDecimal(). */
+  char[] getChars() {
+    return chars;
+  }
+
+  /** Returns the class of the character at index i: SPACE, OTHER, or the
+   *  value of a digit.
+   */
+  int getClass(int i) {
+    return classes[i];
+  }
+
+  /** Returns the folded form of the character at index i. */
+  int getFolded(int i) {
+    return folded[i];
+  }
+
+  /** Returns true if the character at index i maps to a CCharacter. */
+  boolean isMapped(int i) {
+    return (mapped[i >>> 6] & (1L << i)) != 0;
+  }
+
+  /**
+   * Compare this key with another key of the same option.
+   *
+   * @param other The other key
+   * @return The same sign as ChineseHelper.compareNatural() on the two
+   *   source strings.
+   * @throws IllegalArgumentException If the keys have different options.
+   */
+  public int compareTo(NaturalSortKey other) {
+    if (option != other.option) {
+      throw new IllegalArgumentException("NaturalSortKey.compareTo: different options "
+        + option + " and " + other.option);
+    }
+    if (!cjk && !other.cjk) {
+      // toDecimal() changes only CJK characters, so chars are the source characters
+      return StringHelper.compareNatural(chars, other.chars, toStringHelperOption(option));
+    }
+
+    char[] chars1 = chars, chars2 = other.chars;
+    int n1 = chars1.length, n2 = chars2.length;
+    int i1 = 0, i2 = 0;
+    boolean skipped = false;
+    while (true) {
+      // skip leading spaces
+      while (i1 < n1 && classes[i1] == SPACE) {
+	skipped = true;
+	i1++;
+      }
+      while (i2 < n2 && other.classes[i2] == SPACE) {
+	skipped = true;
+	i2++;
+      }
+      char c1 = (i1 >= n1) ? 0 : chars1[i1];
+      char c2 = (i2 >= n2) ? 0 : chars2[i2];
+      int v1 = (i1 >= n1) ? OTHER : classes[i1];
+      int v2 = (i2 >= n2) ? OTHER : other.classes[i2];
+
+      int result = 0;
+      if (v1 >= 0 && v2 >= 0) {  // compare the digit runs as numbers
+	// skip leading zeros but stop before a non-digit
+	while (c1 == '0' && i1 + 1 < n1 && classes[i1 + 1] >= 0) {
+	  c1 = chars1[++i1];
+	  skipped = true;
+	}
+	while (c2 == '0' && i2 + 1 < n2 && other.classes[i2 + 1] >= 0) {
+	  c2 = chars2[++i2];
+	  skipped = true;
+	}
+
+	while (true) {
+	  if (result == 0) result = classes[i1] - other.classes[i2];
+	  i1++;
+	  i2++;
+	  boolean d1 = i1 < n1 && classes[i1] >= 0;
+	  boolean d2 = i2 < n2 && other.classes[i2] >= 0;
+	  if (!d1 && !d2) break;  // both reach the end or become non-digit
+	  if (!d1) return -1;
+	  if (!d2) return 1;
+	}
+	if (result != 0) return result;
+
+	c1 = (i1 >= n1) ? 0 : chars1[i1];
+	c2 = (i2 >= n2) ? 0 : chars2[i2];
+	v1 = (i1 >= n1) ? OTHER : classes[i1];
+	v2 = (i2 >= n2) ? OTHER : other.classes[i2];
+      }
+
+      if (c1 == 0 && c2 == 0) {  // both reach the end
+	if (option == Comparison.IGNORE_FORM || option == Comparison.IGNORE_CASE) {
+	  return (skipped) ? compareIgnoreForm(other) : 0;
+	} else if (isFoldOption(option)) {
+	  return compareChars(chars1, chars2);
+	} else {
+	  return (skipped) ? compareChars(chars1, chars2) : 0;
+	}
+      }
+
+      if (c1 == c2) {  // skip forward if the same
+	i1++;
+	i2++;
+	continue;
+      }
+
+      boolean m1 = i1 < n1 && isMapped(i1);
+      boolean m2 = i2 < n2 && other.isMapped(i2);
+      if (option == Comparison.LEXICAL) {
+	result = ((v1 >= 0) ? v1 : c1) - ((v2 >= 0) ? v2 : c2);
+      } else if (!m1 && !m2) {  // no mapping to CCharacter
+	if (isFoldOption(option) || option == Comparison.IGNORE_FORM
+	  || option == Comparison.IGNORE_CASE) {
+	  c1 = (i1 >= n1) ? 0 : (char) folded[i1];
+	  c2 = (i2 >= n2) ? 0 : (char) other.folded[i2];
+	}
+	result = ((v1 >= 0) ? v1 : c1) - ((v2 >= 0) ? v2 : c2);
+      } else if (!m1) {
+	return ((v1 >= 0) ? v1 : c1) - ((v2 >= 0) ? v2 : other.folded[i2]);
+      } else if (!m2) {
+	return ((v1 >= 0) ? v1 : folded[i1]) - ((v2 >= 0) ? v2 : c2);
+      } else if (isFoldOption(option) || option == Comparison.IGNORE_FORM
+	|| option == Comparison.IGNORE_CASE) {  // compare integer or simplified char
+	result = ((v1 >= 0) ? v1 : folded[i1]) - ((v2 >= 0) ? v2 : other.folded[i2]);
+      }
+      if (result != 0) return result;
+
+      i1++;
+      i2++;
+    }
+  }
+
+  /** Compare the characters as ChineseHelper.compare() with IGNORE_FORM does. */
+  private int compareIgnoreForm(NaturalSortKey other) {
+    char[] chars1 = chars, chars2 = other.chars;
+    int n1 = chars1.length, n2 = chars2.length;
+    for (int i = 0; ; i++) {
+      char c1 = (i >= n1) ? 0 : chars1[i];
+      char c2 = (i >= n2) ? 0 : chars2[i];
+      if (c1 == 0 && c2 == 0) return 0;
+      if (c1 == c2) continue;
+
+      boolean m1 = i < n1 && isMapped(i);
+      boolean m2 = i < n2 && other.isMapped(i);
+      int result;
+      if (!m1 && !m2) {
+	result = ((i >= n1) ? 0 : folded[i]) - ((i >= n2) ? 0 : other.folded[i]);
+      } else if (!m1) {
+	return c1 - other.folded[i];
+      } else if (!m2) {
+	return folded[i] - c2;
+      } else {
+	result = folded[i] - other.folded[i];
+      }
+      if (result != 0) return result;
+    }
+  }
+
+  /** Returns the source string. */
+  public String toString() {
+    return source;
+  }
+
+  /**
+   * Sort the strings in the order of ChineseHelper.compareNatural() with
+   * the option, mapping each string only once.
+   *
+   * @param dictionary The dictionary for mapping the characters
+   * @param strings The strings to sort, which must not contain null
+   * @param option One of the option for comparison.
+   */
+  public static void sort(ChineseDictionary dictionary, List<String> strings, Comparison option) {
+    NaturalSortKey[] keys = new NaturalSortKey[strings.size()];
+    int k = 0;
+    for (String s : strings) keys[k++] = new NaturalSortKey(dictionary, s, option);
+    Arrays.sort(keys);
+
+    ListIterator<String> it = strings.listIterator();
+    for (NaturalSortKey key : keys) {
+      it.next();
+      it.set(key.source);
+    }
+  }
+
+  /** Returns true if the option folds the form, breaking ties by the strings. */
+  static boolean isFoldOption(Comparison option) {
+    return option == Comparison.FOLD_FORM || option == Comparison.FOLD_CASE
+      || option == Comparison.PINYIN_FOLD_FORM;
+  }
+
+  /** Map the option to that for StringHelper.compareNatural(), as
+   *  ChineseHelper.compareNatural() does for strings without CJK characters.
+   */
+  private static Comparison toStringHelperOption(Comparison option) {
+    switch (option) {
+      case IGNORE_FORM:
+	return Comparison.IGNORE_CASE;
+      case FOLD_FORM:
+      case PINYIN_FOLD_FORM:
+	return Comparison.FOLD_CASE;
+      case LEXICAL:
+      default:
+	return Comparison.LEXICAL;
+    }
+  }
+
+  /** Compare the two character arrays as String.compareTo() does. */
+  private static int compareChars(char[] chars1, char[] chars2) {
+    int n = Math.min(chars1.length, chars2.length);
+    for (int i = 0; i < n; i++) {
+      if (chars1[i] != chars2[i]) return chars1[i] - chars2[i];
+    }
+    return chars1.length - chars2.length;
+  }
+
+}
@@ -0,0 +1,169 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * PackedVocabTable.java - A hash table from short vocabulary, packed
+ *   into a long, to CCharacter[].
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A hash table from short vocabulary to CCharacter[].  A vocabulary of
+ * at most {@link #MAX_LENGTH} characters is packed into a long, one
+ * character per 16 bits with the last character in the lowest bits, so
+ * it is looked up without creating a String or a boxed key.
+ * <p>
+ * The table uses open addressing with linear probing, and is immutable
+ * after construction.  Each slot holds the index of its vocabulary in the
+ * CCharacter[][] of all vocabularies, and the slots are kept in buffers,
+ * which are views over the file when the table is read from a
+ * {@link DictionarySnapshot}.
+ */
+final class PackedVocabTable {
+
+  /** Maximum length of a packed vocabulary. */
+  public static final int MAX_LENGTH = 4;
+
+  /** Packed vocabulary of each slot. */
+  private final LongBuffer keys;
+
+  /** Length of the vocabulary of each slot.  Zero if the slot is empty. */
+  private final ByteBuffer lengths;
+
+  /** Index of the vocabulary of each slot in values. */
+  private final IntBuffer indexes;
+
+  /** CCharacters of each vocabulary. */
+  private final CCharacter[][] values;
+
+  /** Number of bits to shift the hash to get a slot. */
+  private final int shift;
+
+  /** Number of vocabularies. */
+  private final int size;
+
+  /** Constructor with the vocabularies, of which those with 1 to
+   *  MAX_LENGTH characters are added.
+   */
+  PackedVocabTable(String[] vocabs, CCharacter[][] cca) {
+    int n = 0;
+    for (String v : vocabs) {
+      if (v.length() > 0 && v.length() <= MAX_LENGTH) n++;
+    }
+
+    int bits = 4;
+    while ((1 << bits) < 2*n) bits++;  // at most half full
+    keys = LongBuffer.allocate(1 << bits);
+    lengths = ByteBuffer.allocate(1 << bits);
+    indexes = IntBuffer.allocate(1 << bits);
+    values = cca;
+    shift = 64 - bits;
+
+    for (int k = 0; k < vocabs.length; k++) {
+      String v = vocabs[k];
+      int len = v.length();
+      if (len == 0 || len > MAX_LENGTH) continue;
+      long key = 0;
+      for (int i = 0; i < len; i++) key = (key << 16) | v.charAt(i);
+      put(key, len, k);
+    }
+    size = n;
+  }
+
+  /**
+   * Constructor with the slots as returned by {@link #getKeys() getKeys()},
+   * {@link #getLengths() getLengths()} and {@link #getIndexes() getIndexes()},
+   * which must not be modified.
+   *
+   * @param keys Packed vocabulary of each slot.  The number of slots is a
+   *   power of 2.
+   * @param lengths Length of the vocabulary of each slot
+   * @param indexes Index of the vocabulary of each slot in cca
+   * @param cca CCharacters of each vocabulary
+   * @param size Number of vocabularies in the slots
+   */
+  PackedVocabTable(LongBuffer keys, ByteBuffer lengths, IntBuffer indexes,
+    CCharacter[][] cca, int size) {
+    this.keys = keys;
+    this.lengths = lengths;
+    this.indexes = indexes;
+    this.values = cca;
+    this.shift = 64 - Integer.numberOfTrailingZeros(keys.capacity());
+    this.size = size;
+  }
+
+  /** Returns the packed key of chars[off, off+len), where len is at most MAX_LENGTH. */
+  public static long pack(char[] chars, int off, int len) {
+    long key = 0;
+    for (int i = off; i < off + len; i++) key = (key << 16) | chars[i];
+    return key;
+  }
+
+  /** Returns the first slot to probe for the key. */
+  private int slot(long key, int len) {
+    return (int) (((key + len) * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  /** Add the vocabulary with the packed key and length, and its index. */
+  private void put(long key, int len, int index) {
+    int mask = keys.capacity() - 1;
+    for (int slot = slot(key, len); ; slot = (slot + 1) & mask) {
+      if (lengths.get(slot) == 0 || (keys.get(slot) == key && lengths.get(slot) == len)) {
+        keys.put(slot, key);
+        lengths.put(slot, (byte) len);
+        indexes.put(slot, index);
+        return;
+      }
+    }
+  }
+
+  /** Returns the number of vocabularies. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the CCharacters for the vocabulary with the packed key and
+   *  length, or null if it is not in the table.
+   */
+  public CCharacter[] get(long key, int len) {
+    int mask = keys.capacity() - 1;
+    for (int slot = slot(key, len); lengths.get(slot) != 0; slot = (slot + 1) & mask) {
+      if (keys.get(slot) == key && lengths.get(slot) == len) return values[indexes.get(slot)];
+    }
+    return null;
+  }
+
+  /** Returns the packed vocabulary of each slot, for writing a snapshot. */
+  LongBuffer getKeys() {
+    return keys.duplicate();
+  }
+
+  /** Returns the length of the vocabulary of each slot, for writing a snapshot. */
+  ByteBuffer getLengths() {
+    return lengths.duplicate();
+  }
+
+  /** Returns the index of the vocabulary of each slot, for writing a snapshot. */
+  IntBuffer getIndexes() {
+    return indexes.duplicate();
+  }
+
+}
@@ -0,0 +1,46 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * ReloadListener.java - A listener notified when the dictionary in use
+ *   is reloaded.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+/**
+ * A listener notified when the dictionary in use is reloaded by
+ * {@link ChineseHelper#reload(java.nio.file.Path csvFile) ChineseHelper.reload()}.
+ */
+public interface ReloadListener {
+
+  /**
+   * Called after the new dictionary has been swapped in.
+   *
+   * @param previous The dictionary replaced, or ChineseDictionary.EMPTY if none
+   * @param current The new dictionary in use
+   * @param buildNanos Nanoseconds spent reading the file and building the
+   *   new dictionary
+   * @param swapNanos Nanoseconds from the new dictionary being built until it
+   *   was swapped in, including any wait for a load in progress
+   * @param changedEntries Number of CCharacter entries (data lines) that
+   *   are only in the previous or only in the current dictionary.  A
+   *   modified line counts as one removed and one added.
+   */
+  void reloaded(ChineseDictionary previous, ChineseDictionary current,
+    long buildNanos, long swapNanos, int changedEntries);
+
+}
@@ -0,0 +1,246 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * SortKeyEncoder.java - Encodes strings into byte arrays whose unsigned
+ *   order is the natural order of ChineseHelper.compareNatural().
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.Arrays;
+
+import util.StringHelper.Comparison;
+
+/**
+ * Encodes strings into byte arrays whose unsigned lexicographic order is
+ * the order of
+ * {@link ChineseHelper#compareNatural(char[] ca1, char[] ca2, Comparison option)
+ * ChineseHelper.compareNatural()} with the same option, for stores and
+ * indexes that compare raw bytes.
+ * <p>
+ * A string is first mapped to a {@link NaturalSortKey}, which holds it
+ * after {@link ChineseHelper#toDecimal(char[] chars) toDecimal()} with
+ * its digits and folded characters.  The bytes then
+ * have up to three levels, each compared only if the ones before are equal:
+ * <ol>
+ * <li>The primary level, with spaces skipped except one right after a
+ *   number, which compareNatural() compares as a character, and without
+ *   trailing spaces and numbers 0, which it compares the same as the
+ *   end of the string.  A run of digits is a number
+ *   token holding its number of digits after leading '0's and the value
+ *   of each digit, so a longer number comes later, and a number comes
+ *   before any other character.  A digit other than 0-9 and the Chinese
+ *   ones has the value ChineseHelper.toInt() gives it, its code minus 48.  Any other character is its folded form:
+ *   the character itself for LEXICAL, otherwise the simplified form of its
+ *   CCharacter, or its upper case if it has none.  For PINYIN_FOLD_FORM,
+ *   a Chinese character is its weight in pinyin order instead, and each
+ *   token is three bytes rather than two.</li>
+ * <li>For IGNORE_FORM and IGNORE_CASE, the folded form of every character,
+ *   as compare() uses when spaces or zeros were skipped.  This is the last
+ *   level, so strings that differ only in form or case, such as
+ *   "&#35422;" and "&#35789;", have the same key, as compareNatural()
+ *   treats them as equal.</li>
+ * <li>For the other options, the characters, as String.compareTo() uses to
+ *   break ties.</li>
+ * </ol>
+ * The levels are joined with the bytes 00 01, and a 00 byte within a level
+ * followed by another level is written as 00 FF, so a shorter level always
+ * comes first.
+ * <p>
+ * Since the key is a function of one string, it cannot follow
+ * compareNatural() where the result depends on both strings at once, or
+ * is not consistent over three strings:
+ * <ul>
+ * <li>A character compared with a digit by the digit value, such as a
+ *   control character below 11 with 0-9, or any character with a digit
+ *   other than 0-9 and the Chinese ones.</li>
+ * <li>The same character mapped to different CCharacters in the two
+ *   strings by its vocabulary context, which compareNatural() treats as
+ *   equal.</li>
+ * <li>A number 0 compared with the end of the other string, which is the
+ *   same as the end, and for a Chinese 0 ends the comparison with the
+ *   strings equal.  The key orders a string as if it ended before a
+ *   trailing 0.</li>
+ * <li>Digits of the same value but of different characters, such as 1 and
+ *   &#19968;, which compareNatural() treats as equal unless a space or
+ *   leading zero was skipped.  For LEXICAL, IGNORE_FORM and IGNORE_CASE
+ *   the key orders them by their characters.</li>
+ * </ul>
+ * {@link #isExact(NaturalSortKey key1, NaturalSortKey key2) isExact()}
+ * checks whether a pair of strings is one of these.  For strings without
+ * CJK characters, compareNatural() defers to StringHelper.compareNatural(),
+ * whose order is not checked here; the key orders such strings by the
+ * rules above.
+ */
+public class SortKeyEncoder {
+
+  /** Byte repeated to mark a number token in the primary level. */
+  private static final int NUMBER = 0x00;
+
+  /**
+   * Encode the string into a natural sort key.
+   *
+   * @param dictionary The dictionary for mapping the characters
+   * @param s The string
+   * @param option One of the option for comparison.
+   *   See {@link util.StringHelper.Comparison StringHelper.Comparison}.
+   * @return The sort key.
+   */
+  public static byte[] encodeNatural(ChineseDictionary dictionary, String s, Comparison option) {
+    return encode(new NaturalSortKey(dictionary, s, option));
+  }
+
+  /** Encode the natural sort key into bytes. */
+  static byte[] encode(NaturalSortKey nkey) {
+    Comparison option = nkey.getOption();
+    char[] chars = nkey.getChars();
+    int n = chars.length;
+    boolean foldCase = option == Comparison.IGNORE_FORM || option == Comparison.IGNORE_CASE
+      || option == Comparison.FOLD_FORM || option == Comparison.FOLD_CASE
+      || option == Comparison.PINYIN_FOLD_FORM;
+    boolean ignore = option == Comparison.IGNORE_FORM || option == Comparison.IGNORE_CASE;
+
+    int width = (option == Comparison.PINYIN_FOLD_FORM) ? 3 : 2;  // bytes of a character
+    Bytes key = new Bytes(3*n + 8);
+    int primaryEnd = getPrimaryEnd(nkey);
+    for (int i = 0; i < primaryEnd; ) {  // primary level
+      int cls = nkey.getClass(i);
+      if (cls == NaturalSortKey.SPACE) {
+        i++;
+      } else if (cls >= 0) {  // a digit
+        int end = i + 1;
+        while (end < n && nkey.getClass(end) >= 0) end++;
+        while (i < end - 1 && chars[i] == '0') i++;  // skip leading zeros
+
+        for (int k = 0; k < width; k++) key.putEscaped(NUMBER);
+        int count = end - i;
+        if (count < 0xFF) {
+          key.putEscaped(count);
+        } else {
+          key.putEscaped(0xFF);
+          for (int shift = 24; shift >= 0; shift -= 8) key.putEscaped(count >>> shift);
+        }
+        for (; i < end; i++) {
+          int value = nkey.getClass(i);
+          if (value < 0xFE) {
+            key.putEscaped(value + 1);
+          } else {  // a digit other than 0-9 and the Chinese ones
+            key.putEscaped(0xFF);
+            key.putEscaped(value, 2);
+          }
+        }
+
+        // the character after a number is compared without skipping spaces
+        if (i < primaryEnd && nkey.getClass(i) == NaturalSortKey.SPACE) {
+          key.putEscaped(nkey.getFolded(i), width);
+          i++;
+        }
+      } else {
+        key.putEscaped((foldCase || nkey.isMapped(i)) ? nkey.getFolded(i) : chars[i], width);
+        i++;
+      }
+    }
+    key.putSeparator();
+
+    if (ignore) {  // secondary level, the last as compareNatural() breaks no ties
+      for (int i = 0; i < n; i++) key.putEscaped(nkey.getFolded(i), 2);
+      return key.toByteArray();
+    }
+
+    for (int i = 0; i < n; i++) key.putChar(chars[i]);  // tie-breaking level
+    return key.toByteArray();
+  }
+
+  /**
+   * Returns the end of the characters in the primary level.  compareNatural()
+   * compares a digit with the end of the other string by its value, so
+   * trailing numbers 0, and the spaces around them, compare the same as the
+   * end.  A space right after a number that is kept is kept too.
+   */
+  private static int getPrimaryEnd(NaturalSortKey nkey) {
+    char[] chars = nkey.getChars();
+    int end = chars.length;
+    while (true) {
+      while (end > 0 && nkey.getClass(end - 1) == NaturalSortKey.SPACE) end--;
+      if (end == 0 || nkey.getClass(end - 1) != 0) break;
+      int start = end - 1;  // a zero, and the '0's before it skipped as leading zeros
+      while (start > 0 && chars[start - 1] == '0') start--;
+      if (start > 0 && nkey.getClass(start - 1) >= 0) break;  // not the number 0
+      end = start;
+    }
+    if (end > 0 && end < chars.length && nkey.getClass(end - 1) >= 0) end++;
+    return end;
+  }
+
+  /**
+   * Check whether the sort keys of two strings compare the same as
+   * compareNatural(), which fails only for the cases it decides by both
+   * strings at once.  See the class description.
+   *
+   * @param key1 The key of the first string
+   * @param key2 The key of the second string, of the same option
+   * @return True if the sort keys are equal, less or greater exactly as
+   *   compareNatural() returns for the strings.
+   */
+  public static boolean isExact(NaturalSortKey key1, NaturalSortKey key2) {
+    int expected = Integer.signum(key1.compareTo(key2));
+    int actual = Integer.signum(Arrays.compareUnsigned(encode(key1), encode(key2)));
+    return expected == actual;
+  }
+
+  /** A growable array of bytes. */
+  private static class Bytes {
+    private byte[] bytes;
+    private int size = 0;
+
+    Bytes(int capacity) {
+      bytes = new byte[capacity];
+    }
+
+    void put(int b) {
+      if (size == bytes.length) bytes = Arrays.copyOf(bytes, 2*size + 8);
+      bytes[size++] = (byte) b;
+    }
+
+    /** Put a byte of a level followed by another level. */
+    void putEscaped(int b) {
+      put(b);
+      if ((b & 0xFF) == 0) put(0xFF);
+    }
+
+    void putChar(char c) {
+      put(c >>> 8);
+      put(c);
+    }
+
+    /** Put the lowest bytes of the value, the highest first. */
+    void putEscaped(int value, int width) {
+      for (int shift = 8*(width - 1); shift >= 0; shift -= 8) putEscaped(value >>> shift);
+    }
+
+    /** Put the separator between two levels. */
+    void putSeparator() {
+      put(0x00);
+      put(0x01);
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, size);
+    }
+  }
+
+}
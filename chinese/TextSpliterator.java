@@ -0,0 +1,140 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * TextSpliterator.java - A spliterator over the segments of a text that
+ *   convert independently of each other.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the segments of a text, which splits the text only
+ * before a character that is in no vocabulary of the dictionary, such as
+ * a space or a punctuation mark.  No vocabulary spans such a position, so
+ * each segment converts in {@link ConversionMode#WINDOW WINDOW} mode the
+ * same as it does within the whole text, and the segments can be
+ * converted in parallel and joined in order.
+ * <p>
+ * Each segment is about the segment size, but it is longer if no such
+ * position is found near its end.  A text without any such position is a
+ * single segment.  The text must not be modified while it is traversed.
+ *
+ * @see ChineseStreams
+ */
+public class TextSpliterator implements Spliterator<CharSequence> {
+
+  /** Default number of characters in a segment. */
+  public static final int DEFAULT_SEGMENT_SIZE = 8192;
+
+  /** The text. */
+  private final CharSequence text;
+
+  /** The dictionary whose vocabularies decide where to split. */
+  private final ChineseDictionary dictionary;
+
+  /** Number of characters in a segment. */
+  private final int segmentSize;
+
+  /** Start of the remaining text. */
+  private int lo;
+
+  /** End of the remaining text. */
+  private final int hi;
+
+  /**
+   * Constructor with the default segment size.
+   *
+   * @param text The text
+   * @param dictionary The dictionary for the conversion
+   */
+  public TextSpliterator(CharSequence text, ChineseDictionary dictionary) {
+    this(text, dictionary, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param text The text
+   * @param dictionary The dictionary for the conversion
+   * @param segmentSize The number of characters in a segment
+   */
+  public TextSpliterator(CharSequence text, ChineseDictionary dictionary, int segmentSize) {
+    this(text, dictionary, segmentSize, 0, text.length());
+    if (segmentSize <= 0) throw new IllegalArgumentException("TextSpliterator: segmentSize must be positive");
+  }
+
+  /** Constructor for text[lo, hi). */
+  private TextSpliterator(CharSequence text, ChineseDictionary dictionary, int segmentSize,
+    int lo, int hi) {
+    this.text = text;
+    this.dictionary = dictionary;
+    this.segmentSize = segmentSize;
+    this.lo = lo;
+    this.hi = hi;
+  }
+
+  /** Returns true if the text can be split before index i. */
+  private boolean isBoundary(int i) {
+    char c = text.charAt(i);
+    return !dictionary.isVocabChar(c) && !Character.isLowSurrogate(c);
+  }
+
+  public boolean tryAdvance(Consumer<? super CharSequence> action) {
+    if (lo >= hi) return false;
+
+    int end = lo + segmentSize;
+    if (end >= hi || end < 0) {
+      end = hi;
+    } else {
+      while (end < hi && !isBoundary(end)) end++;
+    }
+    CharSequence segment = text.subSequence(lo, end);
+    lo = end;
+    action.accept(segment);
+    return true;
+  }
+
+  public Spliterator<CharSequence> trySplit() {
+    if (hi - lo < 2*segmentSize) return null;
+
+    // find the boundary nearest to the middle
+    int mid = (lo + hi) >>> 1;
+    for (int d = 0; mid - d > lo || mid + d < hi; d++) {
+      int p = -1;
+      if (mid + d < hi && isBoundary(mid + d)) p = mid + d;
+      else if (mid - d > lo && isBoundary(mid - d)) p = mid - d;
+      if (p >= 0) {
+        Spliterator<CharSequence> prefix = new TextSpliterator(text, dictionary, segmentSize, lo, p);
+        lo = p;
+        return prefix;
+      }
+    }
+    return null;  // no boundary
+  }
+
+  public long estimateSize() {
+    return (hi - lo + (long) segmentSize - 1) / segmentSize;
+  }
+
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+}
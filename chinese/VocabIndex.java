@@ -0,0 +1,66 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * VocabIndex.java - An index from vocabulary string to CCharacter[].
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.util.Map;
+
+/**
+ * An index from vocabulary string to CCharacter[], probed directly over
+ * a character array so no substring is created.
+ * <p>
+ * The dictionary uses a {@link VocabTrie}.  While the dictionary is being
+ * built, the index is backed by a map that is still being updated.
+ */
+interface VocabIndex {
+
+  /** Returns the number of vocabularies. */
+  int size();
+
+  /** Returns true if the character is in any vocabulary. */
+  boolean contains(char c);
+
+  /** Returns the CCharacters for the vocabulary chars[off, off+len),
+   *  or null if it is not in the index.
+   */
+  CCharacter[] get(char[] chars, int off, int len);
+
+  /** Returns the CCharacters for the vocabulary with the key and length
+   *  as packed by {@link PackedVocabTable#pack(char[], int, int) PackedVocabTable.pack()},
+   *  or null if it is not in the index.
+   */
+  CCharacter[] getPacked(long key, int len);
+
+  /**
+   * Find all vocabularies chars[off, off+len) for len = 1 to maxLen.
+   *
+   * @param chars A character array
+   * @param off The start of the vocabularies
+   * @param maxLen The maximum length, which must not exceed the end of chars
+   * @param lengths Set to the lengths found in ascending order.  It must
+   *   have room for maxLen lengths.
+   * @return The number of lengths found.
+   */
+  int match(char[] chars, int off, int maxLen, int[] lengths);
+
+  /** Returns the vocabularies and their CCharacters in ascending order. */
+  Iterable<Map.Entry<String, CCharacter[]>> entries();
+
+}
@@ -0,0 +1,314 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * VocabTrie.java - A double-array trie from vocabulary string to
+ *   CCharacter[].
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package chinese;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * A double-array trie from vocabulary string to CCharacter[].  It is
+ * immutable after construction.
+ * <p>
+ * Each character in the vocabularies is given a small code.  The state
+ * reached from state s by a character with code c is t = base[s] + c,
+ * which is valid only if check[t] is s + 1.  The state reached by the
+ * last character of a vocabulary has its index in value[], plus one.
+ * <p>
+ * A walk from an offset of the input character array therefore visits
+ * all the vocabularies starting there, shortest first, using only array
+ * accesses and without creating any substring.
+ * <p>
+ * The vocabularies of at most {@link PackedVocabTable#MAX_LENGTH} characters,
+ * which are most of them, are also kept in a {@link PackedVocabTable} for
+ * {@link #getPacked(long key, int len) getPacked()}.
+ * <p>
+ * The codes and states are kept in buffers, which wrap arrays when the
+ * trie is built, or are views over the file when it is read from a
+ * {@link DictionarySnapshot}.
+ */
+final class VocabTrie implements VocabIndex {
+
+  /** Code of each character.  Zero if not in any vocabulary. */
+  private final CharBuffer codes;
+
+  /** Base of the next states of each state. */
+  private final IntBuffer base;
+
+  /** Previous state of each state, plus one.  Zero if not used. */
+  private final IntBuffer check;
+
+  /** Index of the vocabulary ending at each state, plus one.  Zero if none. */
+  private final IntBuffer value;
+
+  /** Number of states. */
+  private final int states;
+
+  /** The vocabularies in ascending order. */
+  private final String[] keys;
+
+  /** The CCharacters of each vocabulary. */
+  private final CCharacter[][] values;
+
+  /** The short vocabularies. */
+  private final PackedVocabTable shortVocabs;
+
+  /** Constructor with the map from vocabulary string to CCharacter[]. */
+  VocabTrie(Map<String, CCharacter[]> vocabToCChar) {
+    keys = vocabToCChar.keySet().toArray(new String[vocabToCChar.size()]);
+    Arrays.sort(keys);
+    values = new CCharacter[keys.length][];
+
+    char[] codeArray = new char[Character.MAX_VALUE + 1];
+    int nextCode = 1;
+    int total = 0;
+    for (int k = 0; k < keys.length; k++) {
+      String v = keys[k];
+      values[k] = vocabToCChar.get(v);
+      for (int i = 0; i < v.length(); i++) {
+        char c = v.charAt(i);
+        if (codeArray[c] == 0) codeArray[c] = (char) nextCode++;
+      }
+      total += v.length();
+    }
+
+    Builder builder = new Builder(keys, codeArray, Math.max(256, total + nextCode));
+    builder.insert(0, 0, 0, keys.length);
+
+    int n = builder.lastUsed + 1;
+    codes = CharBuffer.wrap(codeArray);
+    base = IntBuffer.wrap(Arrays.copyOf(builder.base, n));
+    check = IntBuffer.wrap(Arrays.copyOf(builder.check, n));
+    value = IntBuffer.wrap(Arrays.copyOf(builder.value, n));
+    states = n;
+
+    shortVocabs = new PackedVocabTable(keys, values);
+  }
+
+  /**
+   * Constructor with the tables of a trie as returned by its getters,
+   * which must not be modified.
+   *
+   * @param keys The vocabularies in ascending order
+   * @param values The CCharacters of each vocabulary
+   * @param codes Code of each character
+   * @param base Base of the next states of each state
+   * @param check Previous state of each state, plus one
+   * @param value Index of the vocabulary ending at each state, plus one
+   * @param shortVocabs The short vocabularies, with the same values
+   */
+  VocabTrie(String[] keys, CCharacter[][] values, CharBuffer codes, IntBuffer base,
+    IntBuffer check, IntBuffer value, PackedVocabTable shortVocabs) {
+    this.keys = keys;
+    this.values = values;
+    this.codes = codes;
+    this.base = base;
+    this.check = check;
+    this.value = value;
+    this.states = check.capacity();
+    this.shortVocabs = shortVocabs;
+  }
+
+  /** Returns the code of the character, or zero if not in any vocabulary. */
+  private int code(char c) {
+    return codes.get(c);
+  }
+
+  /** Returns the next state from state s by the character, or -1 if none. */
+  private int next(int s, char c) {
+    int code = code(c);
+    if (code == 0) return -1;
+    int t = base.get(s) + code;
+    return (t < states && check.get(t) == s + 1) ? t : -1;
+  }
+
+  public int size() {
+    return keys.length;
+  }
+
+  public boolean contains(char c) {
+    return code(c) != 0;
+  }
+
+  public CCharacter[] get(char[] chars, int off, int len) {
+    int s = 0;
+    for (int k = off; k < off + len && s >= 0; k++) s = next(s, chars[k]);
+    if (s < 0) return null;
+    int v = value.get(s);
+    return (v == 0) ? null : values[v - 1];
+  }
+
+  public CCharacter[] getPacked(long key, int len) {
+    return shortVocabs.get(key, len);
+  }
+
+  public int match(char[] chars, int off, int maxLen, int[] lengths) {
+    int m = 0;
+    int s = 0;
+    for (int len = 1; len <= maxLen; len++) {
+      s = next(s, chars[off + len - 1]);
+      if (s < 0) break;
+      if (value.get(s) != 0) lengths[m++] = len;
+    }
+    return m;
+  }
+
+  public Iterable<Map.Entry<String, CCharacter[]>> entries() {
+    ArrayList<Map.Entry<String, CCharacter[]>> entries =
+      new ArrayList<Map.Entry<String, CCharacter[]>>(keys.length);
+    for (int k = 0; k < keys.length; k++) {
+      entries.add(new AbstractMap.SimpleImmutableEntry<String, CCharacter[]>(keys[k], values[k]));
+    }
+    return entries;
+  }
+
+  /** Returns the vocabularies in ascending order, for writing a snapshot. */
+  String[] getKeys() {
+    return keys;
+  }
+
+  /** Returns the CCharacters of each vocabulary, for writing a snapshot. */
+  CCharacter[][] getValues() {
+    return values;
+  }
+
+  /** Returns the code of each character, for writing a snapshot. */
+  CharBuffer getCodes() {
+    return codes.duplicate();
+  }
+
+  /** Returns the base of each state, for writing a snapshot. */
+  IntBuffer getBase() {
+    return base.duplicate();
+  }
+
+  /** Returns the previous state of each state, plus one, for writing a snapshot. */
+  IntBuffer getCheck() {
+    return check.duplicate();
+  }
+
+  /** Returns the vocabulary index of each state, plus one, for writing a snapshot. */
+  IntBuffer getValue() {
+    return value.duplicate();
+  }
+
+  /** Returns the short vocabularies, for writing a snapshot. */
+  PackedVocabTable getShortVocabs() {
+    return shortVocabs;
+  }
+
+  /** The growable states of a trie being built. */
+  private static class Builder {
+
+    /** The vocabularies in ascending order. */
+    private final String[] keys;
+
+    /** Code of each character. */
+    private final char[] codes;
+
+    /** Base of the next states of each state. */
+    int[] base;
+
+    /** Previous state of each state, plus one.  Zero if not used. */
+    int[] check;
+
+    /** Index of the vocabulary ending at each state, plus one.  Zero if none. */
+    int[] value;
+
+    /** Lowest state that may not be used yet, for finding a free base. */
+    private int firstFree = 1;
+
+    /** Highest state used. */
+    int lastUsed = 0;
+
+    Builder(String[] keys, char[] codes, int capacity) {
+      this.keys = keys;
+      this.codes = codes;
+      base = new int[capacity];
+      check = new int[capacity];
+      value = new int[capacity];
+      check[0] = -1;  // the root, never a next state
+    }
+
+    /** Add the states after state s for keys[lo, hi), which share the
+     *  first depth characters.
+     */
+    void insert(int s, int depth, int lo, int hi) {
+      if (lo < hi && keys[lo].length() == depth) {  // the key ends at s
+        value[s] = lo + 1;
+        lo++;
+      }
+      if (lo == hi) return;
+
+      // The next characters are in ascending order, one run for each
+      int runs = 0;
+      int[] runCodes = new int[hi - lo];
+      int[] starts = new int[hi - lo + 1];
+      for (int k = lo; k < hi; k++) {
+        char c = keys[k].charAt(depth);
+        if (k == lo || c != keys[k-1].charAt(depth)) {
+          runCodes[runs] = codes[c];
+          starts[runs++] = k;
+        }
+      }
+      starts[runs] = hi;
+
+      int b = findBase(runCodes, runs);
+      base[s] = b;
+      for (int r = 0; r < runs; r++) {
+        int t = b + runCodes[r];
+        check[t] = s + 1;
+        if (t > lastUsed) lastUsed = t;
+      }
+      while (firstFree < check.length && check[firstFree] != 0) firstFree++;
+
+      for (int r = 0; r < runs; r++) {
+        insert(b + runCodes[r], depth + 1, starts[r], starts[r+1]);
+      }
+    }
+
+    /** Returns a base such that the states for all codes are free. */
+    private int findBase(int[] runCodes, int runs) {
+      int min = runCodes[0];
+      for (int r = 1; r < runs; r++) min = Math.min(min, runCodes[r]);
+
+      for (int b = Math.max(0, firstFree - min); ; b++) {
+        boolean free = true;
+        for (int r = 0; r < runs && free; r++) {
+          int t = b + runCodes[r];
+          if (t >= check.length) grow(t + 1);
+          free = (check[t] == 0);
+        }
+        if (free) return b;
+      }
+    }
+
+    /** Grow the arrays to at least the input size. */
+    private void grow(int size) {
+      int capacity = Math.max(size, 2*check.length);
+      base = Arrays.copyOf(base, capacity);
+      check = Arrays.copyOf(check, capacity);
+      value = Arrays.copyOf(value, capacity);
+    }
+  }
+
+}
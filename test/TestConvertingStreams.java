@@ -0,0 +1,114 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * TestConvertingStreams.java - Tests that ConvertingReader and
+ *   ConvertingWriter convert the same as converting the whole text.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package test;
+
+import java.io.*;
+
+import chinese.*;
+
+/**
+ * Tests that {@link ConvertingReader} and {@link ConvertingWriter} give
+ * the same text as converting the whole text at once in
+ * {@link ConversionMode#WINDOW WINDOW} mode, no matter how the text is
+ * split into reads and writes.  The sizes include 1, sizes around the
+ * buffer size of 8192 and a single write of the whole text, through
+ * write(char[]), write(String), append() and a PrintWriter.
+ * <p>
+ * Run with chinese.csv in the current directory or on the class path.
+ * It throws an Exception at the first difference.
+ */
+public class TestConvertingStreams {
+
+  /** Sizes of the reads and writes. */
+  private static final int[] SIZES = {1, 2, 3, 7, 4096, 8191, 8192, 8193, 100000, Integer.MAX_VALUE};
+
+  public static void main(String[] args) throws Exception {
+    ChineseDictionary dictionary = ChineseHelper.getDictionary();
+    String text = TestData.vocabularyText(dictionary, 300000, 2);
+    char[] chars = text.toCharArray();
+
+    for (boolean traditional : new boolean[] {true, false}) {
+      String expected = dictionary.convert(chars, traditional, ConversionMode.WINDOW);
+      for (int size : SIZES) {
+        String where = "traditional " + traditional + ", size " + size;
+
+        // the reader, with reads of the size from a reader giving at most size characters
+        Reader in = new ConvertingReader(new ChunkedReader(text, size), dictionary, traditional);
+        StringBuilder read = new StringBuilder();
+        char[] cbuf = new char[Math.min(size, chars.length)];
+        int n;
+        while ((n = in.read(cbuf, 0, cbuf.length)) >= 0) read.append(cbuf, 0, n);
+        in.close();
+        check(read.toString(), expected, "reader, " + where);
+
+        StringWriter out = new StringWriter();
+        Writer writer = new ConvertingWriter(out, dictionary, traditional);
+        for (int i = 0; i < chars.length; i += Math.min(size, chars.length - i)) {
+          writer.write(chars, i, Math.min(size, chars.length - i));
+        }
+        writer.close();
+        check(out.toString(), expected, "write(char[]), " + where);
+
+        out = new StringWriter();
+        writer = new ConvertingWriter(out, dictionary, traditional);
+        for (int i = 0; i < chars.length; i += Math.min(size, chars.length - i)) {
+          writer.write(text, i, Math.min(size, chars.length - i));
+        }
+        writer.close();
+        check(out.toString(), expected, "write(String), " + where);
+
+        out = new StringWriter();
+        PrintWriter printer = new PrintWriter(new ConvertingWriter(out, dictionary, traditional));
+        for (int i = 0; i < chars.length; i += Math.min(size, chars.length - i)) {
+          printer.append(text, i, i + Math.min(size, chars.length - i));
+        }
+        printer.close();
+        check(out.toString(), expected, "PrintWriter.append(), " + where);
+      }
+    }
+    System.out.println("TestConvertingStreams: passed, " + chars.length + " characters");
+  }
+
+  /** Throw an Exception if the text is not the expected one. */
+  private static void check(String text, String expected, String where) throws Exception {
+    if (!text.equals(expected)) {
+      int i = 0;
+      while (i < text.length() && i < expected.length() && text.charAt(i) == expected.charAt(i)) i++;
+      throw new Exception("TestConvertingStreams: different text at " + i + " with " + where);
+    }
+  }
+
+  /** A reader returning at most the input number of characters per read. */
+  private static class ChunkedReader extends StringReader {
+    private final int size;
+
+    ChunkedReader(String s, int size) {
+      super(s);
+      this.size = size;
+    }
+
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      return super.read(cbuf, off, Math.min(len, size));
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * TestData.java - Generates text for the tests of the chinese package.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package test;
+
+import java.util.List;
+import java.util.Random;
+
+import chinese.CCharacter;
+import chinese.ChineseDictionary;
+
+/**
+ * Generates text for the tests of the chinese package.
+ */
+public class TestData {
+
+  /**
+   * Returns random text made of the vocabularies and characters of the
+   * dictionary in both forms, so that the conversion uses the vocabularies,
+   * with some Latin letters, a character outside the BMP, and lines ending
+   * with LF, CR LF or a lone CR.
+   *
+   * @param dictionary The dictionary to take the vocabularies from
+   * @param length The minimum number of characters
+   * @param seed The seed of the random numbers, so the text is repeatable
+   * @return The text.
+   */
+  public static String vocabularyText(ChineseDictionary dictionary, int length, long seed) {
+    Random random = new Random(seed);
+    List<CCharacter> cChars = dictionary.getCChars();
+    StringBuilder sb = new StringBuilder(length + 64);
+    while (sb.length() < length) {
+      CCharacter cc = cChars.get(random.nextInt(cChars.size()));
+      String[] vocabs = cc.getConcepts().isEmpty() ? null : cc.getConcepts().get(0).vocabs;
+      if (vocabs != null && vocabs.length > 0 && random.nextInt(3) > 0) {
+        sb.append(vocabs[random.nextInt(vocabs.length)]);
+      } else {
+        sb.append(random.nextBoolean() ? cc.simpChar : cc.tradChar);
+      }
+
+      switch (random.nextInt(100)) {
+        case 0: sb.append('\n'); break;
+        case 1: sb.append("\r\n"); break;
+        case 2: sb.append('\r'); break;
+        case 3: sb.append("a\uD83D\uDE00b"); break;
+        case 4: sb.append(' '); break;
+        default: break;
+      }
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,101 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * TestDictionaryParser.java - Tests that parsing the Chinese character
+ *   data in parallel gives the same result as parsing it sequentially.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package test;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import chinese.*;
+
+/**
+ * Tests that {@link DictionaryParser#parse(char[] chars, int start, int end,
+ * DictionaryBuilder builder, int chunkSize) DictionaryParser.parse()} in
+ * small chunks, which parses in parallel, gives the same dictionary and
+ * reports the same invalid lines in the same order as parsing the data in
+ * one chunk.  The data are chinese.csv with an invalid line inserted every
+ * 500 lines.  The dictionaries are compared by their snapshots.
+ * <p>
+ * Run with chinese.csv in the current directory or on the class path.
+ * It throws an Exception at the first difference.
+ */
+public class TestDictionaryParser {
+
+  public static void main(String[] args) throws Exception {
+    InputStream in = new File(ChineseHelper.CSV_FILE).exists()
+      ? new FileInputStream(ChineseHelper.CSV_FILE)
+      : ClassLoader.getSystemResourceAsStream("chinese/" + ChineseHelper.CSV_FILE);
+    if (in == null) throw new Exception("TestDictionaryParser: " + ChineseHelper.CSV_FILE + " not found");
+    String csv;
+    try {
+      csv = new String(DictionaryParser.readAll(in));
+    } finally {
+      in.close();
+    }
+
+    StringBuilder sb = new StringBuilder();
+    int lines = 0;
+    for (String line : csv.split("\n", -1)) {
+      if (++lines % 500 == 0) sb.append("X,invalid ").append(lines).append('\n');
+      sb.append(line).append('\n');
+    }
+    char[] data = sb.toString().toCharArray();
+
+    byte[] expected = null;
+    String expectedMessages = null;
+    for (int chunkSize : new int[] {data.length, 997, 65536}) {
+      DictionaryBuilder builder = new DictionaryBuilder();
+      PrintStream out = System.out;
+      ByteArrayOutputStream messages = new ByteArrayOutputStream();
+      System.setOut(new PrintStream(messages, true, "UTF-8"));
+      try {
+        DictionaryParser.parse(data, 0, data.length, builder, chunkSize);
+      } finally {
+        System.setOut(out);
+      }
+      byte[] snapshot = toSnapshot(builder.build());
+
+      if (expected == null) {
+        expected = snapshot;
+        expectedMessages = messages.toString("UTF-8");
+        if (expectedMessages.isEmpty()) throw new Exception("TestDictionaryParser: no invalid line reported");
+      } else if (!Arrays.equals(snapshot, expected)) {
+        throw new Exception("TestDictionaryParser: different dictionary, chunk size " + chunkSize);
+      } else if (!messages.toString("UTF-8").equals(expectedMessages)) {
+        throw new Exception("TestDictionaryParser: different invalid lines, chunk size " + chunkSize);
+      }
+    }
+    System.out.println("TestDictionaryParser: passed, " + lines + " lines");
+  }
+
+  /** Returns the snapshot of the dictionary. */
+  private static byte[] toSnapshot(ChineseDictionary dictionary) throws IOException {
+    File file = File.createTempFile("chinese", ".ccd");
+    try {
+      DictionarySnapshot.write(dictionary, file);
+      return Files.readAllBytes(file.toPath());
+    } finally {
+      file.delete();
+    }
+  }
+
+}
@@ -0,0 +1,94 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * TestDictionarySnapshot.java - Tests that a dictionary read back from a
+ *   snapshot is the same as the dictionary it was written from.
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import chinese.*;
+
+/**
+ * Tests that a dictionary read back from a {@link DictionarySnapshot} is
+ * the same as the dictionary loaded from chinese.csv: the same entries,
+ * pinyin ranks, CCharacters for each character of a text, and conversions
+ * in every mode, and that writing it again gives the same file.
+ * <p>
+ * Run with chinese.csv in the current directory or on the class path.
+ * It throws an Exception at the first difference.
+ */
+public class TestDictionarySnapshot {
+
+  public static void main(String[] args) throws Exception {
+    ChineseDictionary loaded = ChineseHelper.getDictionary();
+    File file = File.createTempFile("chinese", ".ccd");
+    File copy = File.createTempFile("chinese", ".ccd");
+    file.deleteOnExit();
+    copy.deleteOnExit();
+
+    DictionarySnapshot.write(loaded, file);
+    ChineseDictionary read = DictionarySnapshot.read(file);
+
+    if (read.size() != loaded.size() || read.countChanges(loaded) != 0) {
+      throw new Exception("TestDictionarySnapshot: different entries");
+    }
+
+    List<CCharacter> cChars1 = loaded.getCChars();
+    List<CCharacter> cChars2 = read.getCChars();
+    for (int i = 0; i < cChars1.size(); i++) {
+      if (loaded.getPinyinRank(cChars1.get(i)) != read.getPinyinRank(cChars2.get(i))) {
+        throw new Exception("TestDictionarySnapshot: different pinyin rank of " + cChars1.get(i));
+      }
+    }
+
+    char[] text = TestData.vocabularyText(loaded, 200000, 1).toCharArray();
+    if (!Arrays.equals(ids(loaded, loaded.toCChars(text)), ids(read, read.toCChars(text)))) {
+      throw new Exception("TestDictionarySnapshot: different CCharacters");
+    }
+    for (boolean traditional : new boolean[] {true, false}) {
+      for (ConversionMode mode : ConversionMode.values()) {
+        if (!loaded.convert(text, traditional, mode).equals(read.convert(text, traditional, mode))) {
+          throw new Exception("TestDictionarySnapshot: different conversion, traditional "
+            + traditional + ", " + mode);
+        }
+      }
+    }
+
+    DictionarySnapshot.write(read, copy);
+    if (!Arrays.equals(Files.readAllBytes(file.toPath()), Files.readAllBytes(copy.toPath()))) {
+      throw new Exception("TestDictionarySnapshot: different snapshot written back");
+    }
+    System.out.println("TestDictionarySnapshot: passed, " + read.size() + " entries");
+  }
+
+  /** Returns the index in the dictionary of each CCharacter, or -1 for null. */
+  private static int[] ids(ChineseDictionary dictionary, CCharacter[] cca) {
+    IdentityHashMap<CCharacter, Integer> index = new IdentityHashMap<CCharacter, Integer>();
+    for (CCharacter cc : dictionary.getCChars()) index.put(cc, index.size());
+    int[] ids = new int[cca.length];
+    for (int i = 0; i < cca.length; i++) ids[i] = (cca[i] == null) ? -1 : index.get(cca[i]);
+    return ids;
+  }
+
+}
@@ -0,0 +1,76 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * TestFileConverter.java - Tests that FileConverter writes the same file
+ *   as ChineseHelper.convert().
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import chinese.*;
+
+/**
+ * Tests that {@link FileConverter} writes a file byte for byte the same as
+ * {@link ChineseHelper#convert(String inFile, String outFile, boolean traditional,
+ * ConversionMode mode) ChineseHelper.convert()}, in every mode and for
+ * chunks small enough that the file spans many mapped windows.  The files
+ * include an empty one, one without a final line feed, and one ending
+ * with a lone CR.
+ * <p>
+ * Run with chinese.csv in the current directory or on the class path.
+ * It throws an Exception at the first difference.
+ */
+public class TestFileConverter {
+
+  public static void main(String[] args) throws Exception {
+    ChineseDictionary dictionary = ChineseHelper.getDictionary();
+    String text = TestData.vocabularyText(dictionary, 1000000, 3);
+    String[] texts = {text, text + "\n", "", "\n\n", "abc", "abc\r"};
+
+    File in = File.createTempFile("chinese", ".txt");
+    File expected = File.createTempFile("chinese", ".txt");
+    File out = File.createTempFile("chinese", ".txt");
+    try {
+      for (int t = 0; t < texts.length; t++) {
+        Files.write(in.toPath(), texts[t].getBytes("UTF-8"));
+        for (boolean traditional : new boolean[] {true, false}) {
+          for (ConversionMode mode : ConversionMode.values()) {
+            ChineseHelper.convert(in.getPath(), expected.getPath(), traditional, mode);
+            byte[] bytes = Files.readAllBytes(expected.toPath());
+            for (int chunkSize : new int[] {1, 1000, 1 << 20}) {
+              FileConverter.convert(in, out, dictionary, traditional, mode, chunkSize);
+              if (!Arrays.equals(Files.readAllBytes(out.toPath()), bytes)) {
+                throw new Exception("TestFileConverter: different file for text " + t
+                  + ", traditional " + traditional + ", " + mode + ", chunk size " + chunkSize);
+              }
+            }
+          }
+        }
+      }
+    } finally {
+      in.delete();
+      expected.delete();
+      out.delete();
+    }
+    System.out.println("TestFileConverter: passed");
+  }
+
+}
@@ -0,0 +1,113 @@
+/* ////////////////////////////////////////////////////////////////////////
+ * TestSortKeyEncoder.java - Tests that the natural sort keys are in the
+ *   order of ChineseHelper.compareNatural().
+ *
+ *   Copyright (C) 2026-2026    Yun-Tung Lau
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * ////////////////////////////////////////////////////////////////////////
+ *
+ */
+//*************************************************************************
+
+package test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import chinese.*;
+import util.StringHelper.Comparison;
+
+/**
+ * Tests that the keys of
+ * {@link ChineseHelper#toNaturalSortKey(String s, Comparison option)
+ * ChineseHelper.toNaturalSortKey()} compare equal, less or greater exactly
+ * as {@link ChineseHelper#compareNatural(String s1, String s2, Comparison option)
+ * ChineseHelper.compareNatural()} and {@link NaturalSortKey} do, for every
+ * option, on random pairs of strings of Chinese characters in both forms,
+ * letters in both cases, spaces and numbers.  The strings avoid the corner
+ * cases listed in {@link SortKeyEncoder}: characters mapped by context,
+ * control characters, zeros, and Chinese digits.  Strings that differ only
+ * in form or case must have the same key for IGNORE_FORM and IGNORE_CASE.
+ * <p>
+ * Run with chinese.csv in the current directory or on the class path.
+ * It throws an Exception at the first difference.
+ */
+public class TestSortKeyEncoder {
+
+  /** Characters of the strings, each with only one CCharacter in any context. */
+  private static final String POOL = "\u8A5E\u8BCD\u8A9E\u8BED\u66F8\u4E66\u570B\u56FD\u4E2D\u6587"
+    + "aAbB 123456789";
+
+  /** Number of pairs to compare for each option. */
+  private static final int PAIRS = 100000;
+
+  public static void main(String[] args) throws Exception {
+    ChineseDictionary dictionary = ChineseHelper.getDictionary();
+    Random random = new Random(4);
+
+    for (Comparison option : Comparison.values()) {
+      for (int t = 0; t < PAIRS; t++) {
+        String s1 = randomString(random);
+        String s2 = (t % 4 == 0) ? s1 : randomString(random);
+        if (t % 8 == 0) s2 = flip(s1);  // the other form or case
+
+        NaturalSortKey key1 = new NaturalSortKey(dictionary, s1, option);
+        NaturalSortKey key2 = new NaturalSortKey(dictionary, s2, option);
+        int expected = Integer.signum(ChineseHelper.compareNatural(s1, s2, option));
+        int compared = Integer.signum(key1.compareTo(key2));
+        int encoded = Integer.signum(Arrays.compareUnsigned(ChineseHelper.toNaturalSortKey(s1, option),
+          ChineseHelper.toNaturalSortKey(s2, option)));
+        if (compared != expected || encoded != expected || !SortKeyEncoder.isExact(key1, key2)) {
+          throw new Exception("TestSortKeyEncoder: " + option + " '" + s1 + "' '" + s2
+            + "' compareNatural " + expected + ", NaturalSortKey " + compared + ", key " + encoded);
+        }
+      }
+    }
+
+    for (Comparison option : new Comparison[] {Comparison.IGNORE_FORM, Comparison.IGNORE_CASE}) {
+      String s = "\u8A5E\u8A9E A1";
+      if (!Arrays.equals(ChineseHelper.toNaturalSortKey(s, option),
+        ChineseHelper.toNaturalSortKey(flip(s), option))) {
+        throw new Exception("TestSortKeyEncoder: different keys of the two forms for " + option);
+      }
+    }
+    System.out.println("TestSortKeyEncoder: passed, " + PAIRS + " pairs per option");
+  }
+
+  /** Returns a random string of 1 to 8 characters with at least one Chinese character. */
+  private static String randomString(Random random) {
+    StringBuilder sb = new StringBuilder();
+    int n = 1 + random.nextInt(8);
+    for (int i = 0; i < n; i++) sb.append(POOL.charAt(random.nextInt(POOL.length())));
+    if (!ChineseHelper.containsUnicodeCJK(sb.toString())) {
+      sb.insert(random.nextInt(sb.length() + 1), POOL.charAt(random.nextInt(10)));
+    }
+    return sb.toString();
+  }
+
+  /** Returns the string with the form of the Chinese characters and the case of the letters swapped. */
+  private static String flip(String s) {
+    char[] chars = s.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      int k = POOL.indexOf(chars[i]);
+      if (k >= 0 && k < 8) {
+        chars[i] = POOL.charAt(k ^ 1);
+      } else if (Character.isLetter(chars[i]) && chars[i] < 0x80) {
+        chars[i] = Character.isUpperCase(chars[i]) ? Character.toLowerCase(chars[i])
+          : Character.toUpperCase(chars[i]);
+      }
+    }
+    return new String(chars);
+  }
+
+}